@@ -1,12 +1,26 @@
 package io.github.djfdyuruiry.jmeter.azure;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 import static java.util.function.Predicate.not;
@@ -14,6 +28,7 @@ import static java.util.function.Predicate.not;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.jmeter.config.Arguments;
 import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.threads.JMeterContextService;
 import org.apache.jmeter.visualizers.backend.AbstractBackendListenerClient;
 import org.apache.jmeter.visualizers.backend.BackendListenerContext;
 import org.slf4j.Logger;
@@ -30,17 +45,73 @@ import com.microsoft.applicationinsights.internal.quickpulse.QuickPulse;
 public class AppInsightsListener extends AbstractBackendListenerClient {
   private static final String KEY_TEST_NAME = "testName";
   private static final String KEY_INSTRUMENTATION_KEY = "instrumentationKey";
+  private static final String KEY_INGESTION_ENDPOINT = "ingestionEndpoint";
   private static final String KEY_RESULT_FIELDS = "resultFields";
   private static final String KEY_LIVE_METRICS = "liveMetrics";
+  private static final String KEY_LIVE_METRICS_MODE = "liveMetricsMode";
+  private static final String KEY_LIVE_METRICS_ENDPOINT = "liveMetricsEndpoint";
   private static final String KEY_SAMPLERS_LIST = "samplersList";
   private static final String KEY_USE_REGEX_FOR_SAMPLER_LIST = "useRegexForSamplerList";
+  private static final String KEY_LOAD_SHEDDING = "loadShedding";
+  private static final String KEY_LOAD_SHEDDING_HEAP_THRESHOLDS = "loadSheddingHeapThresholds";
+  private static final String KEY_LOAD_SHEDDING_GC_THRESHOLDS = "loadSheddingGcThresholds";
+  private static final String KEY_LOAD_SHEDDING_SAMPLE_RATE = "loadSheddingSampleRate";
+  private static final String KEY_AGGREGATION_INTERVAL_MS = "aggregationIntervalMs";
+  private static final String KEY_TIME_SERIES_METRICS = "timeSeriesMetrics";
+  private static final String KEY_TIME_SERIES_RESOLUTION_MS = "timeSeriesResolutionMs";
+  private static final String KEY_FAILURE_PAYLOADS = "failurePayloads";
+  private static final String KEY_FAILURE_PAYLOAD_MAX_BYTES = "failurePayloadMaxBytes";
+  private static final String KEY_FAILURE_PAYLOAD_BUDGET_BYTES = "failurePayloadBudgetBytes";
+  private static final String KEY_FAILURE_PAYLOAD_BUDGET_INTERVAL_MS = "failurePayloadBudgetIntervalMs";
+  private static final String KEY_DRAIN_TIMEOUT_MS = "drainTimeoutMs";
+  private static final String KEY_RESULT_LOG_PATH = "resultLogPath";
+  private static final String KEY_RESULT_LOG_ROTATE_MB = "resultLogRotateMb";
+  private static final String KEY_SAMPLING_PERCENTAGE = "samplingPercentage";
+  private static final String KEY_RUNTIME_CONFIG_FILE = "runtimeConfigFile";
+  private static final String KEY_DRY_RUN = "dryRun";
   private static final String KEY_CUSTOM_PROPERTIES_PREFIX = "ai.";
+  private static final String KEY_CUSTOM_FIELDS_PREFIX = "field.";
 
   private static final String DEFAULT_TEST_NAME = "jmeter";
   private static final String DEFAULT_INSTRUMENTATION_KEY = "";
+  private static final String DEFAULT_INGESTION_ENDPOINT = "";
   private static final boolean DEFAULT_LIVE_METRICS = true;
+  private static final String DEFAULT_LIVE_METRICS_MODE = "telemetry";
+  private static final String DEFAULT_LIVE_METRICS_ENDPOINT = LiveMetricsCounterPublisher.DEFAULT_ENDPOINT;
   private static final String DEFAULT_SAMPLERS_LIST = "";
   private static final boolean DEFAULT_USE_REGEX_FOR_SAMPLER_LIST = false;
+  private static final boolean DEFAULT_LOAD_SHEDDING = false;
+  private static final String DEFAULT_LOAD_SHEDDING_HEAP_THRESHOLDS = "0.75;0.85;0.92";
+  private static final String DEFAULT_LOAD_SHEDDING_GC_THRESHOLDS = "0.05;0.10;0.20";
+  private static final int DEFAULT_LOAD_SHEDDING_SAMPLE_RATE = 10;
+  private static final long DEFAULT_AGGREGATION_INTERVAL_MS = 10000;
+  private static final boolean DEFAULT_TIME_SERIES_METRICS = true;
+  private static final long DEFAULT_TIME_SERIES_RESOLUTION_MS = 1000;
+  private static final boolean DEFAULT_FAILURE_PAYLOADS = false;
+  private static final int DEFAULT_FAILURE_PAYLOAD_MAX_BYTES = 1024;
+  private static final long DEFAULT_FAILURE_PAYLOAD_BUDGET_BYTES = 1024 * 1024;
+  private static final long DEFAULT_FAILURE_PAYLOAD_BUDGET_INTERVAL_MS = 60000;
+  private static final long DEFAULT_DRAIN_TIMEOUT_MS = 30000;
+  private static final String DEFAULT_RESULT_LOG_PATH = "";
+  private static final long DEFAULT_RESULT_LOG_ROTATE_MB = 256;
+  private static final double DEFAULT_SAMPLING_PERCENTAGE = 100.0;
+  private static final String DEFAULT_RUNTIME_CONFIG_FILE = "";
+  private static final boolean DEFAULT_DRY_RUN = false;
+
+  private static final long RUNTIME_CONFIG_CHECK_INTERVAL_MS = 5000;
+  private static final long DRY_RUN_REPORT_INTERVAL_MS = 60000;
+
+  private static final String LIVE_METRICS_MODE_TELEMETRY = "telemetry";
+  private static final String LIVE_METRICS_MODE_COUNTERS = "counters";
+
+  private static final Set<SampleResultField> TIME_SERIES_FIELDS = EnumSet.of(
+      SampleResultField.GROUP_THREADS,
+      SampleResultField.ALL_THREADS,
+      SampleResultField.SAMPLE_COUNT
+  );
+
+  private static final String EVENT_LOAD_SHEDDING_LEVEL_CHANGED = "LoadSheddingLevelChanged";
+  private static final String EVENT_RUNTIME_CONFIGURATION_CHANGED = "RuntimeConfigurationChanged";
 
   private static final Logger LOG = LoggerFactory.getLogger(AppInsightsListener.class);
 
@@ -48,14 +119,39 @@ public class AppInsightsListener extends AbstractBackendListenerClient {
 
   private final Function<TelemetryConfiguration, TelemetryClient> telemetryClientFactory;
   private final Consumer<TelemetryConfiguration> quickPulseInitialiser;
+  private final TelemetryClientRegistry telemetryClientRegistry;
   private final SampleResultToTelemetryMapper resultMapper;
+  private final SampleResultFieldExtractorFactory extractorFactory;
+  private final SampleVariablesCapture variablesCapture;
 
   private String testName;
-  private String samplersList = "";
-  private Boolean useRegexForSamplerList;
-  private Set<String> samplersToFilter;
-
+  private String samplersList;
+  private boolean useRegexForSamplerList;
+  private SampleFilter sampleFilter;
+  private double samplingPercentage;
+  private int loadSheddingSampleRate;
+  private long aggregationIntervalMs;
+
+  private boolean timeSeriesMetricsEnabled;
+  private String liveMetricsMode;
+  private long drainTimeoutMs;
+
+  private TelemetryClientRegistry.SharedTelemetryClient sharedTelemetryClient;
   private TelemetryClient telemetryClient;
+  private CountingTelemetryChannel telemetryChannel;
+  private DryRunTelemetryChannel dryRunChannel;
+  private ScheduledExecutorService scheduler;
+  private ThroughputMetricsSampler throughputMetricsSampler;
+  private LiveMetricsCounters liveMetricsCounters;
+  private HeapPressureMonitor heapPressureMonitor;
+  private FailurePayloadCapture failurePayloadCapture;
+  private BinaryResultLogWriter resultLogWriter;
+  private RuntimeConfigWatcher runtimeConfigWatcher;
+  private SampleAggregator sampleAggregator;
+  private long samplesSampledOut;
+  private long samplesSampledOutByLoadShedding;
+  private long samplesAggregated;
+  private long lastAggregationFlushMs;
 
   /**
    * Constructor called by JMeter when loading this plugin.
@@ -64,8 +160,11 @@ public class AppInsightsListener extends AbstractBackendListenerClient {
     super();
     telemetryClientFactory = TelemetryClient::new;
     quickPulseInitialiser = QuickPulse.INSTANCE::initialize;
+    telemetryClientRegistry = TelemetryClientRegistry.INSTANCE;
 
     resultMapper = new SampleResultToTelemetryMapper();
+    extractorFactory = new SampleResultFieldExtractorFactory();
+    variablesCapture = new SampleVariablesCapture();
   }
 
   /**
@@ -81,6 +180,11 @@ public class AppInsightsListener extends AbstractBackendListenerClient {
     this.telemetryClientFactory = telemetryClientFactory;
     this.quickPulseInitialiser = quickPulseInitialiser;
     this.resultMapper = resultMapper;
+
+    telemetryClientRegistry = new TelemetryClientRegistry();
+
+    extractorFactory = new SampleResultFieldExtractorFactory();
+    variablesCapture = new SampleVariablesCapture();
   }
 
   @Override
@@ -89,14 +193,24 @@ public class AppInsightsListener extends AbstractBackendListenerClient {
 
     arguments.addArgument(KEY_TEST_NAME, DEFAULT_TEST_NAME);
     arguments.addArgument(KEY_INSTRUMENTATION_KEY, DEFAULT_INSTRUMENTATION_KEY);
+    arguments.addArgument(KEY_INGESTION_ENDPOINT, DEFAULT_INGESTION_ENDPOINT);
     arguments.addArgument(KEY_LIVE_METRICS, Boolean.toString(DEFAULT_LIVE_METRICS));
+    arguments.addArgument(KEY_LIVE_METRICS_MODE, DEFAULT_LIVE_METRICS_MODE);
     arguments.addArgument(KEY_SAMPLERS_LIST, DEFAULT_SAMPLERS_LIST);
     arguments.addArgument(KEY_USE_REGEX_FOR_SAMPLER_LIST, Boolean.toString(DEFAULT_USE_REGEX_FOR_SAMPLER_LIST));
+    arguments.addArgument(KEY_SAMPLING_PERCENTAGE, Double.toString(DEFAULT_SAMPLING_PERCENTAGE));
+    arguments.addArgument(KEY_RUNTIME_CONFIG_FILE, DEFAULT_RUNTIME_CONFIG_FILE);
+    arguments.addArgument(KEY_DRY_RUN, Boolean.toString(DEFAULT_DRY_RUN));
+    arguments.addArgument(KEY_TIME_SERIES_METRICS, Boolean.toString(DEFAULT_TIME_SERIES_METRICS));
+    arguments.addArgument(KEY_LOAD_SHEDDING, Boolean.toString(DEFAULT_LOAD_SHEDDING));
+    arguments.addArgument(KEY_FAILURE_PAYLOADS, Boolean.toString(DEFAULT_FAILURE_PAYLOADS));
+    arguments.addArgument(KEY_DRAIN_TIMEOUT_MS, Long.toString(DEFAULT_DRAIN_TIMEOUT_MS));
+    arguments.addArgument(KEY_RESULT_LOG_PATH, DEFAULT_RESULT_LOG_PATH);
 
     return arguments;
   }
 
-  private void initialiseLiveMetricsIfEnabled(BackendListenerContext context, TelemetryConfiguration config) {
+  private void initialiseLiveMetricsIfEnabled(BackendListenerContext context) {
     var liveMetricsEnabled = context.getBooleanParameter(KEY_LIVE_METRICS, DEFAULT_LIVE_METRICS);
 
     if (!liveMetricsEnabled) {
@@ -105,9 +219,28 @@ public class AppInsightsListener extends AbstractBackendListenerClient {
       return;
     }
 
-    LOG.info("Init live metrics start");
+    if (dryRunChannel != null) {
+      LOG.warn("Live metrics are disabled in dry run mode");
+
+      return;
+    }
+
+    LOG.info("Init live metrics start (mode: {})", liveMetricsMode);
+
+    if (LIVE_METRICS_MODE_COUNTERS.equals(liveMetricsMode)) {
+      var endpoint = context.getParameter(KEY_LIVE_METRICS_ENDPOINT, DEFAULT_LIVE_METRICS_ENDPOINT).trim();
 
-    quickPulseInitialiser.accept(config);
+      sharedTelemetryClient.initialiseLiveMetricsCountersOnce(
+          (instrumentationKey, counters) -> new LiveMetricsCounterPublisher(endpoint, instrumentationKey, counters)
+      );
+    } else {
+      sharedTelemetryClient.initialiseLiveMetricsOnce(quickPulseInitialiser);
+    }
+
+    // follows the mode of whichever listener initialised the shared client first
+    if (sharedTelemetryClient.isLiveMetricsFedByCounters()) {
+      liveMetricsCounters = sharedTelemetryClient.getLiveMetricsCounters();
+    }
 
     LOG.info("Init live metrics finish");
   }
@@ -115,18 +248,205 @@ public class AppInsightsListener extends AbstractBackendListenerClient {
   private void initialiseTelemetryClient(BackendListenerContext context) {
     LOG.info("Init telemetry client start");
 
-    var instrumentationKey = context.getParameter(KEY_INSTRUMENTATION_KEY);
+    var dryRun = context.getBooleanParameter(KEY_DRY_RUN, DEFAULT_DRY_RUN);
+
+    if (dryRun) {
+      LOG.warn("Dry run mode enabled, telemetry will be serialized and measured but not sent");
+    }
 
-    var config = TelemetryConfiguration.createDefault();
-    config.setInstrumentationKey(instrumentationKey);
+    sharedTelemetryClient = telemetryClientRegistry.acquire(
+        context.getParameter(KEY_INSTRUMENTATION_KEY, DEFAULT_INSTRUMENTATION_KEY),
+        context.getParameter(KEY_INGESTION_ENDPOINT, DEFAULT_INGESTION_ENDPOINT).trim(),
+        dryRun,
+        telemetryClientFactory
+    );
 
-    telemetryClient = telemetryClientFactory.apply(config);
+    telemetryClient = sharedTelemetryClient.getClient();
+    telemetryChannel = sharedTelemetryClient.getChannel();
+    dryRunChannel = sharedTelemetryClient.getDryRunChannel();
 
-    initialiseLiveMetricsIfEnabled(context, config);
+    initialiseLiveMetricsIfEnabled(context);
 
     LOG.info("Init telemetry client finish");
   }
 
+  private static double[] parseThresholds(String key, String thresholdsCsv) {
+    var thresholds = Arrays.stream(thresholdsCsv.trim().split(SEPARATOR))
+        .filter(not(StringUtils::isBlank))
+        .mapToDouble(t -> Double.parseDouble(t.trim()))
+        .toArray();
+
+    if (thresholds.length != LoadSheddingLevel.values().length - 1) {
+      throw new IllegalArgumentException(
+          String.format(
+              "%s must contain %d thresholds separated by '%s', got: %s",
+              key,
+              LoadSheddingLevel.values().length - 1,
+              SEPARATOR,
+              thresholdsCsv
+          )
+      );
+    }
+
+    return thresholds;
+  }
+
+  private void onLoadSheddingLevelChanged(LoadSheddingLevel from, LoadSheddingLevel to) {
+    resultMapper.setHeavyFieldsDropped(to.isAtLeast(LoadSheddingLevel.DROP_HEAVY_FIELDS));
+
+    if (!to.isAtLeast(LoadSheddingLevel.AGGREGATE_ONLY)) {
+      flushAggregates();
+    }
+
+    telemetryClient.trackEvent(
+        EVENT_LOAD_SHEDDING_LEVEL_CHANGED,
+        Map.of(
+            "TestName", testName,
+            "FromLevel", from.toString(),
+            "ToLevel", to.toString()
+        ),
+        Map.of(
+            "HeapUsageAfterGc", heapPressureMonitor.getLastHeapUsage(),
+            "GcOverhead", heapPressureMonitor.getLastGcOverhead()
+        )
+    );
+  }
+
+  private void initialiseLoadSheddingIfEnabled(BackendListenerContext context) {
+    sampleAggregator = new SampleAggregator();
+    aggregationIntervalMs = context.getLongParameter(KEY_AGGREGATION_INTERVAL_MS, DEFAULT_AGGREGATION_INTERVAL_MS);
+    lastAggregationFlushMs = System.currentTimeMillis();
+
+    if (!context.getBooleanParameter(KEY_LOAD_SHEDDING, DEFAULT_LOAD_SHEDDING)) {
+      return;
+    }
+
+    LOG.info("Init load shedding start");
+
+    heapPressureMonitor = new HeapPressureMonitor(
+        parseThresholds(
+            KEY_LOAD_SHEDDING_HEAP_THRESHOLDS,
+            context.getParameter(KEY_LOAD_SHEDDING_HEAP_THRESHOLDS, DEFAULT_LOAD_SHEDDING_HEAP_THRESHOLDS)
+        ),
+        parseThresholds(
+            KEY_LOAD_SHEDDING_GC_THRESHOLDS,
+            context.getParameter(KEY_LOAD_SHEDDING_GC_THRESHOLDS, DEFAULT_LOAD_SHEDDING_GC_THRESHOLDS)
+        ),
+        this::onLoadSheddingLevelChanged
+    );
+    heapPressureMonitor.start();
+
+    LOG.info("Init load shedding finish");
+  }
+
+  private void initialiseScheduler() {
+    scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("app-insights-listener-scheduler"));
+  }
+
+  private void initialiseTimeSeriesMetricsIfEnabled(BackendListenerContext context) {
+    if (!timeSeriesMetricsEnabled) {
+      return;
+    }
+
+    LOG.info("Init time series metrics start");
+
+    var resolutionMs = context.getLongParameter(KEY_TIME_SERIES_RESOLUTION_MS, DEFAULT_TIME_SERIES_RESOLUTION_MS);
+
+    throughputMetricsSampler = new ThroughputMetricsSampler(
+        testName,
+        JMeterContextService::getNumberOfThreads,
+        telemetryClient::trackMetric
+    );
+
+    scheduler.scheduleAtFixedRate(
+        throughputMetricsSampler::report,
+        resolutionMs,
+        resolutionMs,
+        TimeUnit.MILLISECONDS
+    );
+
+    LOG.info("Init time series metrics finish");
+  }
+
+  private void initialiseFailurePayloadCaptureIfEnabled(BackendListenerContext context) {
+    if (!context.getBooleanParameter(KEY_FAILURE_PAYLOADS, DEFAULT_FAILURE_PAYLOADS)) {
+      return;
+    }
+
+    LOG.info("Init failure payload capture start");
+
+    failurePayloadCapture = new FailurePayloadCapture(
+        context.getIntParameter(KEY_FAILURE_PAYLOAD_MAX_BYTES, DEFAULT_FAILURE_PAYLOAD_MAX_BYTES),
+        context.getLongParameter(KEY_FAILURE_PAYLOAD_BUDGET_BYTES, DEFAULT_FAILURE_PAYLOAD_BUDGET_BYTES),
+        context.getLongParameter(KEY_FAILURE_PAYLOAD_BUDGET_INTERVAL_MS, DEFAULT_FAILURE_PAYLOAD_BUDGET_INTERVAL_MS)
+    );
+
+    LOG.info("Init failure payload capture finish");
+  }
+
+  private void initialiseResultLogIfEnabled(BackendListenerContext context) {
+    var resultLogPath = context.getParameter(KEY_RESULT_LOG_PATH, DEFAULT_RESULT_LOG_PATH).trim();
+
+    if (resultLogPath.isEmpty()) {
+      return;
+    }
+
+    LOG.info("Init result log start");
+
+    var rotateMb = context.getLongParameter(KEY_RESULT_LOG_ROTATE_MB, DEFAULT_RESULT_LOG_ROTATE_MB);
+
+    try {
+      resultLogWriter = new BinaryResultLogWriter(Paths.get(resultLogPath), rotateMb * 1024 * 1024);
+    } catch (IOException e) {
+      throw new UncheckedIOException(String.format("Unable to open result log: %s", resultLogPath), e);
+    }
+
+    LOG.info("Init result log finish");
+  }
+
+  private void initialiseRuntimeConfigWatcherIfEnabled(BackendListenerContext context) {
+    var runtimeConfigFile = context.getParameter(KEY_RUNTIME_CONFIG_FILE, DEFAULT_RUNTIME_CONFIG_FILE).trim();
+
+    if (runtimeConfigFile.isEmpty()) {
+      return;
+    }
+
+    LOG.info("Init runtime configuration watcher start");
+
+    runtimeConfigWatcher = new RuntimeConfigWatcher(Paths.get(runtimeConfigFile));
+
+    scheduler.scheduleWithFixedDelay(
+        runtimeConfigWatcher::check,
+        0,
+        RUNTIME_CONFIG_CHECK_INTERVAL_MS,
+        TimeUnit.MILLISECONDS
+    );
+
+    LOG.info("Init runtime configuration watcher finish");
+  }
+
+  private void initialiseDryRunReportIfEnabled() {
+    if (dryRunChannel == null) {
+      return;
+    }
+
+    scheduler.scheduleAtFixedRate(
+        dryRunChannel::logReport,
+        DRY_RUN_REPORT_INTERVAL_MS,
+        DRY_RUN_REPORT_INTERVAL_MS,
+        TimeUnit.MILLISECONDS
+    );
+  }
+
+  private static ThreadFactory daemonThreadFactory(String threadName) {
+    return r -> {
+      var thread = new Thread(r, threadName);
+      thread.setDaemon(true);
+
+      return thread;
+    };
+  }
+
   private void loadCustomProperties(BackendListenerContext context) {
     Iterable<String> paramNames = context::getParameterNamesIterator;
 
@@ -134,12 +454,45 @@ public class AppInsightsListener extends AbstractBackendListenerClient {
         .filter(p -> p.startsWith(KEY_CUSTOM_PROPERTIES_PREFIX))
         .forEach(p ->
             resultMapper.addCustomProperty(
-                p.replace(KEY_CUSTOM_PROPERTIES_PREFIX, EMPTY),
+                p.substring(KEY_CUSTOM_PROPERTIES_PREFIX.length()),
                 context.getParameter(p)
             )
         );
   }
 
+  /**
+   * Used at startup and for runtime configuration, so both ignore the same fields.
+   */
+  private boolean isReportedByTimeSeriesMetrics(SampleResultField field) {
+    if (timeSeriesMetricsEnabled && TIME_SERIES_FIELDS.contains(field)) {
+      LOG.warn("Result field {} is ignored as it is reported by time series metrics", field);
+
+      return true;
+    }
+
+    return false;
+  }
+
+  private void enableResultField(SampleResultField field) {
+    if (isReportedByTimeSeriesMetrics(field)) {
+      return;
+    }
+
+    resultMapper.enableResultField(field);
+  }
+
+  private void enableResultField(String fieldName) {
+    var providedExtractor = extractorFactory.getProvidedExtractor(fieldName);
+
+    if (providedExtractor.isPresent()) {
+      resultMapper.enableCustomField(providedExtractor.get().getFieldName(), providedExtractor.get());
+
+      return;
+    }
+
+    enableResultField(SampleResultField.parse(fieldName));
+  }
+
   private void loadRequestFields(BackendListenerContext context) {
     var resultFieldsCsv = context.getParameter(KEY_RESULT_FIELDS, EMPTY);
 
@@ -149,14 +502,71 @@ public class AppInsightsListener extends AbstractBackendListenerClient {
 
     Arrays.stream(resultFieldsCsv.trim().split(SEPARATOR))
         .filter(not(StringUtils::isEmpty))
-        .map(SampleResultField::parse)
-        .forEach(resultMapper::enableResultField);
+        .forEach(this::enableResultField);
+  }
+
+  private static double parseSamplingPercentage(String samplingPercentageValue) {
+    var percentage = Double.parseDouble(samplingPercentageValue.trim());
+
+    if (percentage <= 0 || percentage > 100) {
+      throw new IllegalArgumentException(
+          String.format("%s must be greater than 0 and at most 100, got: %s", KEY_SAMPLING_PERCENTAGE, samplingPercentageValue)
+      );
+    }
+
+    return percentage;
+  }
+
+  private static String parseLiveMetricsMode(String liveMetricsModeValue) {
+    var mode = liveMetricsModeValue.trim().toLowerCase();
+
+    if (!mode.equals(LIVE_METRICS_MODE_TELEMETRY) && !mode.equals(LIVE_METRICS_MODE_COUNTERS)) {
+      throw new IllegalArgumentException(
+          String.format(
+              "%s must be one of %s or %s, got: %s",
+              KEY_LIVE_METRICS_MODE,
+              LIVE_METRICS_MODE_TELEMETRY,
+              LIVE_METRICS_MODE_COUNTERS,
+              liveMetricsModeValue
+          )
+      );
+    }
+
+    return mode;
+  }
+
+  private static int parseLoadSheddingSampleRate(String sampleRateValue) {
+    var sampleRate = Integer.parseInt(sampleRateValue.trim());
+
+    if (sampleRate < 1) {
+      throw new IllegalArgumentException(
+          String.format("%s must be at least 1, got: %s", KEY_LOAD_SHEDDING_SAMPLE_RATE, sampleRateValue)
+      );
+    }
+
+    return sampleRate;
+  }
+
+  private void loadCustomFields(BackendListenerContext context) {
+    Iterable<String> paramNames = context::getParameterNamesIterator;
+
+    StreamSupport.stream((paramNames).spliterator(), false)
+        .filter(p -> p.startsWith(KEY_CUSTOM_FIELDS_PREFIX))
+        .forEach(p ->
+            resultMapper.enableCustomField(
+                p.substring(KEY_CUSTOM_FIELDS_PREFIX.length()),
+                extractorFactory.compileExtractor(context.getParameter(p), variablesCapture)
+            )
+        );
   }
 
   private void loadParameters(BackendListenerContext context) {
     LOG.info("Loading plugin parameters start");
 
     testName = context.getParameter(KEY_TEST_NAME, DEFAULT_TEST_NAME);
+    timeSeriesMetricsEnabled = context.getBooleanParameter(KEY_TIME_SERIES_METRICS, DEFAULT_TIME_SERIES_METRICS);
+    drainTimeoutMs = context.getLongParameter(KEY_DRAIN_TIMEOUT_MS, DEFAULT_DRAIN_TIMEOUT_MS);
+    liveMetricsMode = parseLiveMetricsMode(context.getParameter(KEY_LIVE_METRICS_MODE, DEFAULT_LIVE_METRICS_MODE));
 
     loadRequestFields(context);
 
@@ -166,47 +576,375 @@ public class AppInsightsListener extends AbstractBackendListenerClient {
         DEFAULT_USE_REGEX_FOR_SAMPLER_LIST
     );
 
-    samplersToFilter = useRegexForSamplerList ?
-        new HashSet<>() :
-        Arrays.stream(samplersList.split(SEPARATOR)).collect(Collectors.toSet());
+    sampleFilter = SampleFilter.of(samplersList, useRegexForSamplerList, SEPARATOR);
+
+    samplingPercentage = parseSamplingPercentage(
+        context.getParameter(KEY_SAMPLING_PERCENTAGE, Double.toString(DEFAULT_SAMPLING_PERCENTAGE))
+    );
+    loadSheddingSampleRate = parseLoadSheddingSampleRate(
+        context.getParameter(KEY_LOAD_SHEDDING_SAMPLE_RATE, Integer.toString(DEFAULT_LOAD_SHEDDING_SAMPLE_RATE))
+    );
 
     LOG.info("Loading plugin parameters finish");
   }
+
+  /**
+   * Called on the listener thread between batches, so the new settings need no locking.
+   */
+  private void applyRuntimeConfig(Properties config) {
+    LOG.info("Applying runtime configuration start");
+
+    var newSamplersList = config.getProperty(KEY_SAMPLERS_LIST, samplersList).trim();
+    var newUseRegexForSamplerList = Boolean.parseBoolean(
+        config.getProperty(KEY_USE_REGEX_FOR_SAMPLER_LIST, Boolean.toString(useRegexForSamplerList))
+    );
+
+    SampleFilter newSampleFilter;
+    List<SampleResultField> newResultFields = null;
+    double newSamplingPercentage;
+    int newLoadSheddingSampleRate;
+
+    try {
+      newSampleFilter = SampleFilter.of(newSamplersList, newUseRegexForSamplerList, SEPARATOR);
+      newSamplingPercentage = parseSamplingPercentage(
+          config.getProperty(KEY_SAMPLING_PERCENTAGE, Double.toString(samplingPercentage))
+      );
+      newLoadSheddingSampleRate = parseLoadSheddingSampleRate(
+          config.getProperty(KEY_LOAD_SHEDDING_SAMPLE_RATE, Integer.toString(loadSheddingSampleRate))
+      );
+
+      if (config.containsKey(KEY_RESULT_FIELDS)) {
+        newResultFields = new ArrayList<>();
+
+        for (var fieldName : config.getProperty(KEY_RESULT_FIELDS).trim().split(SEPARATOR)) {
+          if (isBlank(fieldName)) {
+            continue;
+          }
+
+          var field = SampleResultField.parse(fieldName);
+
+          if (!isReportedByTimeSeriesMetrics(field)) {
+            newResultFields.add(field);
+          }
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      LOG.error("Runtime configuration rejected, keeping current settings", e);
+
+      return;
+    }
+
+    samplersList = newSamplersList;
+    useRegexForSamplerList = newUseRegexForSamplerList;
+    sampleFilter = newSampleFilter;
+    samplingPercentage = newSamplingPercentage;
+    loadSheddingSampleRate = newLoadSheddingSampleRate;
+
+    if (newResultFields != null) {
+      resultMapper.replaceResultFields(newResultFields);
+    }
+
+    var eventProperties = new HashMap<String, String>();
+
+    eventProperties.put("TestName", testName);
+    eventProperties.put("ConfigFile", runtimeConfigWatcher.getConfigFile().toString());
+    config.stringPropertyNames()
+        .forEach(k -> eventProperties.put(k, config.getProperty(k)));
+
+    telemetryClient.trackEvent(EVENT_RUNTIME_CONFIGURATION_CHANGED, eventProperties, Map.of());
+
+    LOG.info("Applying runtime configuration finish");
+  }
+
   @Override
   public void setupTest(BackendListenerContext context) {
     LOG.info("Setup start");
 
     loadParameters(context);
     loadCustomProperties(context);
+    loadCustomFields(context);
     initialiseTelemetryClient(context);
+    initialiseScheduler();
+    initialiseTimeSeriesMetricsIfEnabled(context);
+    initialiseLoadSheddingIfEnabled(context);
+    initialiseFailurePayloadCaptureIfEnabled(context);
+    initialiseResultLogIfEnabled(context);
+    initialiseRuntimeConfigWatcherIfEnabled(context);
+    initialiseDryRunReportIfEnabled();
 
     LOG.info("Setup finish");
   }
 
-  private void trackRequest(String requestName, SampleResult jmeterRequest) {
+  private void trackRequest(String requestName, SampleResult jmeterRequest, LoadSheddingLevel sheddingLevel) {
     LOG.debug("Sending result to Azure AppInsights");
 
-    telemetryClient.trackRequest(
-        resultMapper.map(requestName, jmeterRequest)
-    );
+    var mappingStartNanos = dryRunChannel != null ? System.nanoTime() : 0;
+    var telemetry = resultMapper.map(requestName, jmeterRequest);
+
+    if (dryRunChannel != null) {
+      dryRunChannel.recordMappingCost(System.nanoTime() - mappingStartNanos);
+    }
+
+    if (failurePayloadCapture != null && !sheddingLevel.isAtLeast(LoadSheddingLevel.DROP_HEAVY_FIELDS)) {
+      failurePayloadCapture.capture(jmeterRequest, telemetry);
+    }
+
+    var effectiveSamplingPercentage = sheddingLevel.isAtLeast(LoadSheddingLevel.INCREASED_SAMPLING)
+        ? samplingPercentage / loadSheddingSampleRate
+        : samplingPercentage;
+
+    if (effectiveSamplingPercentage < 100.0) {
+      // lets App Insights scale counts back up for the samples we skipped
+      telemetry.setSamplingPercentage(effectiveSamplingPercentage);
+    }
+
+    telemetryClient.trackRequest(telemetry);
 
     LOG.debug("Result sent to Azure AppInsights");
   }
 
+  private void flushAggregates() {
+    lastAggregationFlushMs = System.currentTimeMillis();
+
+    if (sampleAggregator == null || sampleAggregator.isEmpty()) {
+      return;
+    }
+
+    LOG.debug("Sending aggregated results to Azure AppInsights");
+
+    sampleAggregator.drainTo(testName, telemetryClient::trackMetric);
+  }
+
+  private void flushAggregatesIfDue() {
+    if (System.currentTimeMillis() - lastAggregationFlushMs >= aggregationIntervalMs) {
+      flushAggregates();
+    }
+  }
+
+  private boolean shedSample(SampleResult sr, LoadSheddingLevel sheddingLevel) {
+    if (sheddingLevel.isAtLeast(LoadSheddingLevel.AGGREGATE_ONLY)) {
+      sampleAggregator.add(sr);
+      samplesAggregated++;
+
+      return true;
+    }
+
+    if (
+        sheddingLevel.isAtLeast(LoadSheddingLevel.INCREASED_SAMPLING) &&
+        ThreadLocalRandom.current().nextInt(loadSheddingSampleRate) != 0
+    ) {
+      samplesSampledOutByLoadShedding++;
+
+      return true;
+    }
+
+    return false;
+  }
+
+  private boolean sampleOut() {
+    if (samplingPercentage >= 100.0) {
+      return false;
+    }
+
+    // decided per sample, a repeating order of labels would otherwise skew which labels are kept
+    if (ThreadLocalRandom.current().nextDouble(100.0) < samplingPercentage) {
+      return false;
+    }
+
+    samplesSampledOut++;
+
+    return true;
+  }
+
+  @Override
+  public SampleResult createSampleResult(BackendListenerContext context, SampleResult result) {
+    if (!variablesCapture.isEmpty()) {
+      variablesCapture.capture(result);
+    }
+
+    if (throughputMetricsSampler != null) {
+      var threadGroup = JMeterContextService.getContext().getThreadGroup();
+
+      if (threadGroup != null) {
+        throughputMetricsSampler.recordThreadGroup(threadGroup.getName(), threadGroup::getNumberOfThreads);
+      }
+    }
+
+    return result;
+  }
+
+  private void writeToResultLog(SampleResult sr) {
+    try {
+      resultLogWriter.write(sr);
+    } catch (IOException e) {
+      LOG.error("Error writing to result log, no further results will be written to it", e);
+
+      closeResultLog();
+    }
+  }
+
+  private void flushResultLog() {
+    try {
+      resultLogWriter.flush();
+    } catch (IOException e) {
+      LOG.error("Error flushing result log, no further results will be written to it", e);
+
+      closeResultLog();
+    }
+  }
+
+  private void closeResultLog() {
+    if (resultLogWriter == null) {
+      return;
+    }
+
+    try {
+      resultLogWriter.close();
+    } catch (IOException e) {
+      LOG.error("Error closing result log", e);
+    }
+
+    resultLogWriter = null;
+  }
+
+  void handleSampleResult(SampleResult sr, LoadSheddingLevel sheddingLevel) {
+    if (resultLogWriter != null) {
+      writeToResultLog(sr);
+    }
+
+    if (!sampleFilter.shouldTrack(sr.getSampleLabel())) {
+      return;
+    }
+
+    if (throughputMetricsSampler != null) {
+      throughputMetricsSampler.record(sr);
+    }
+
+    if (liveMetricsCounters != null) {
+      liveMetricsCounters.record(sr);
+    }
+
+    // aggregates are not scaled back up, so they need every tracked result before sampling
+    if (shedSample(sr, sheddingLevel) || sampleOut()) {
+      return;
+    }
+
+    trackRequest(testName, sr, sheddingLevel);
+  }
+
   @Override
   public void handleSampleResults(List<SampleResult> results, BackendListenerContext context) {
+    if (runtimeConfigWatcher != null) {
+      var runtimeConfig = runtimeConfigWatcher.poll();
+
+      if (runtimeConfig != null) {
+        applyRuntimeConfig(runtimeConfig);
+      }
+    }
+
+    var sheddingLevel = heapPressureMonitor != null
+        ? heapPressureMonitor.evaluate()
+        : LoadSheddingLevel.NONE;
+
     for (SampleResult sr : results) {
-      if (!samplersList.isEmpty()) {
-        var samplerShouldBeTracked = useRegexForSamplerList ?
-            sr.getSampleLabel().matches(samplersList) :
-            samplersToFilter.contains(sr.getSampleLabel());
+      handleSampleResult(sr, sheddingLevel);
+      variablesCapture.release(sr);
+    }
 
-        if (!samplerShouldBeTracked) {
-          continue;
-        }
+    if (resultLogWriter != null) {
+      flushResultLog();
+    }
+
+    flushAggregatesIfDue();
+  }
+
+  private long remainingMs(long deadlineMs) {
+    return Math.max(0, deadlineMs - System.currentTimeMillis());
+  }
+
+  private boolean drainInternalQueues(long deadlineMs) throws InterruptedException {
+    if (telemetryClient == null) {
+      // setup failed before there was anything to drain
+      return true;
+    }
+
+    if (scheduler != null) {
+      scheduler.shutdown();
+
+      if (!scheduler.awaitTermination(remainingMs(deadlineMs), TimeUnit.MILLISECONDS)) {
+        return false;
       }
+    }
 
-      trackRequest(testName, sr);
+    var drainExecutor = Executors.newCachedThreadPool(daemonThreadFactory("app-insights-listener-drain"));
+
+    try {
+      var internalQueueFlushes = new CompletableFuture<?>[] {
+          CompletableFuture.runAsync(this::flushAggregates, drainExecutor),
+          CompletableFuture.runAsync(this::closeResultLog, drainExecutor),
+          CompletableFuture.runAsync(
+              () -> {
+                if (throughputMetricsSampler != null) {
+                  throughputMetricsSampler.report();
+                }
+              },
+              drainExecutor
+          )
+      };
+
+      CompletableFuture.allOf(internalQueueFlushes)
+          .thenRunAsync(telemetryClient::flush, drainExecutor)
+          .get(remainingMs(deadlineMs), TimeUnit.MILLISECONDS);
+
+      return true;
+    } catch (ExecutionException e) {
+      LOG.error("Error while draining telemetry", e.getCause());
+
+      return false;
+    } catch (TimeoutException e) {
+      return false;
+    } finally {
+      drainExecutor.shutdownNow();
+    }
+  }
+
+  private void drainTelemetry() throws InterruptedException {
+    LOG.info("Draining telemetry start (deadline: {}ms)", drainTimeoutMs);
+
+    var drainStartMs = System.currentTimeMillis();
+    var deadlineMs = drainStartMs + drainTimeoutMs;
+
+    var drained = drainInternalQueues(deadlineMs);
+    var itemsSent = telemetryChannel != null ? telemetryChannel.getItemsSent() : null;
+    var lastReference = sharedTelemetryClient != null && telemetryClientRegistry.release(sharedTelemetryClient);
+
+    if (lastReference && telemetryChannel != null) {
+      // waits for in-flight transmissions, or just stops the sender threads once the deadline has passed
+      telemetryChannel.stop(remainingMs(deadlineMs), TimeUnit.MILLISECONDS);
+    }
+
+    var drainTimeMs = System.currentTimeMillis() - drainStartMs;
+    var drainTimedOut = !drained || drainTimeMs > drainTimeoutMs;
+
+    if (drainTimedOut) {
+      LOG.warn("Draining telemetry did not finish within {}ms, buffered telemetry may be lost", drainTimeoutMs);
+    } else {
+      LOG.info("Draining telemetry finish");
+    }
+
+    LOG.info(
+        "Delivery report: sent to channel={} (all listeners sharing the channel), sampled out={}, " +
+            "sampled out by load shedding={}, aggregated={}, drain time={}ms, drain timed out={}",
+        itemsSent != null ? itemsSent : "unknown",
+        samplesSampledOut,
+        samplesSampledOutByLoadShedding,
+        samplesAggregated,
+        drainTimeMs,
+        drainTimedOut
+    );
+
+    if (dryRunChannel != null) {
+      dryRunChannel.logReport();
     }
   }
 
@@ -214,8 +952,12 @@ public class AppInsightsListener extends AbstractBackendListenerClient {
   public void teardownTest(BackendListenerContext context) throws Exception {
     LOG.warn("Stopping Azure AppInsights Listener");
 
-    samplersToFilter.clear();
-    telemetryClient.flush();
+    if (heapPressureMonitor != null) {
+      heapPressureMonitor.stop();
+    }
+
+    variablesCapture.clear();
+    drainTelemetry();
     super.teardownTest(context);
 
     LOG.warn("Azure AppInsights Listener Stopped");
@@ -0,0 +1,71 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import static java.lang.String.format;
+
+/**
+ * Layout of the compact result log written by {@link BinaryResultLogWriter}.
+ *
+ * A file starts with {@link #MAGIC} and is followed by records, each starting with a tag byte:
+ * <ul>
+ *   <li>{@link #TAG_DICTIONARY_ENTRY}: id (varint), UTF-8 length (varint), UTF-8 bytes</li>
+ *   <li>{@link #TAG_SAMPLE}: start time delta from the previous sample (zigzag varint), elapsed, latency,
+ *   connect time, bytes, sent bytes, error count (varints), success (byte), label id, response code id,
+ *   thread name id (varints)</li>
+ * </ul>
+ * Every file carries its own dictionary and its first sample's delta is from zero, so rotated files
+ * can be read independently.
+ */
+final class BinaryResultLog {
+  public static final int MAGIC = 0x4A524C31; // "JRL1"
+
+  public static final byte TAG_DICTIONARY_ENTRY = 1;
+  public static final byte TAG_SAMPLE = 2;
+
+  public static final int MAX_STRING_CHARS = 1024;
+
+  private BinaryResultLog() {
+  }
+
+  public static Path filePath(Path basePath, int fileIndex) {
+    return basePath.resolveSibling(format("%s.%04d", basePath.getFileName(), fileIndex));
+  }
+
+  public static void putVarLong(ByteBuffer buffer, long value) {
+    while ((value & ~0x7FL) != 0) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+
+    buffer.put((byte) value);
+  }
+
+  /**
+   * Throws {@link java.nio.BufferUnderflowException} if the buffer ends part way through the value.
+   */
+  public static long getVarLong(ByteBuffer buffer) {
+    var value = 0L;
+    var shift = 0;
+    byte b;
+
+    do {
+      b = buffer.get();
+      value |= (long) (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+
+    return value;
+  }
+
+  public static void putZigZagLong(ByteBuffer buffer, long value) {
+    putVarLong(buffer, (value << 1) ^ (value >> 63));
+  }
+
+  public static long getZigZagLong(ByteBuffer buffer) {
+    var value = getVarLong(buffer);
+
+    return (value >>> 1) ^ -(value & 1);
+  }
+}
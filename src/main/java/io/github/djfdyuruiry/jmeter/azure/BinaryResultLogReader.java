@@ -0,0 +1,237 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.BufferUnderflowException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+import static java.lang.String.format;
+
+import static io.github.djfdyuruiry.jmeter.azure.BinaryResultLog.*;
+
+/**
+ * Reads result logs written by {@link BinaryResultLogWriter}, and converts them to CSV from the command line:
+ *
+ * <pre>
+ * java -cp jmeter-azure-app-insights.jar io.github.djfdyuruiry.jmeter.azure.BinaryResultLogReader results.jrl results.csv
+ * </pre>
+ *
+ * where <code>results.jrl</code> is the <code>resultLogPath</code> the listener was configured with,
+ * all rotated files are exported in order.
+ */
+public class BinaryResultLogReader {
+  // platform logging, so the reader can run from the command line without JMeter's classpath
+  private static final System.Logger LOG = System.getLogger(BinaryResultLogReader.class.getName());
+
+  private static final String CSV_HEADER =
+      "timeStamp,elapsed,label,responseCode,threadName,success,bytes,sentBytes,Latency,Connect,errorCount";
+
+  public static class LoggedSample {
+    private long startTime;
+    private long elapsed;
+    private long latency;
+    private long connectTime;
+    private long bytes;
+    private long sentBytes;
+    private long errorCount;
+    private boolean success;
+    private String label;
+    private String responseCode;
+    private String threadName;
+
+    public long getStartTime() {
+      return startTime;
+    }
+
+    public long getElapsed() {
+      return elapsed;
+    }
+
+    public long getLatency() {
+      return latency;
+    }
+
+    public long getConnectTime() {
+      return connectTime;
+    }
+
+    public long getBytes() {
+      return bytes;
+    }
+
+    public long getSentBytes() {
+      return sentBytes;
+    }
+
+    public long getErrorCount() {
+      return errorCount;
+    }
+
+    public boolean isSuccess() {
+      return success;
+    }
+
+    public String getLabel() {
+      return label;
+    }
+
+    public String getResponseCode() {
+      return responseCode;
+    }
+
+    public String getThreadName() {
+      return threadName;
+    }
+  }
+
+  private BinaryResultLogReader() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1 || args.length > 2) {
+      System.err.println("Usage: BinaryResultLogReader <resultLogPath> [output.csv]");
+      System.exit(1);
+    }
+
+    var basePath = Paths.get(args[0]);
+
+    if (args.length == 2) {
+      try (var out = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+        exportToCsv(basePath, out);
+      }
+    } else {
+      var out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+
+      exportToCsv(basePath, out);
+      out.flush();
+    }
+  }
+
+  public static void exportToCsv(Path basePath, Writer out) throws IOException {
+    out.write(CSV_HEADER);
+    out.write('\n');
+
+    try {
+      readAll(basePath, s -> {
+        try {
+          out.write(
+              format(
+                  "%d,%d,%s,%s,%s,%b,%d,%d,%d,%d,%d\n",
+                  s.startTime + s.elapsed,
+                  s.elapsed,
+                  csvValue(s.label),
+                  csvValue(s.responseCode),
+                  csvValue(s.threadName),
+                  s.success,
+                  s.bytes,
+                  s.sentBytes,
+                  s.latency,
+                  s.connectTime,
+                  s.errorCount
+              )
+          );
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Reads every rotated file for the given result log path, in the order they were written.
+   */
+  public static void readAll(Path basePath, Consumer<LoggedSample> sampleConsumer) throws IOException {
+    for (var fileIndex = 0; ; fileIndex++) {
+      var logFile = filePath(basePath, fileIndex);
+
+      if (!Files.exists(logFile)) {
+        return;
+      }
+
+      read(logFile, sampleConsumer);
+    }
+  }
+
+  public static void read(Path filePath, Consumer<LoggedSample> sampleConsumer) throws IOException {
+    try (var channel = FileChannel.open(filePath, StandardOpenOption.READ)) {
+      var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+      if (buffer.remaining() < Integer.BYTES || buffer.getInt() != MAGIC) {
+        throw new IOException(format("Not a result log file: %s", filePath));
+      }
+
+      var dictionary = new ArrayList<String>();
+      var lastStartTime = 0L;
+
+      while (buffer.hasRemaining()) {
+        var recordStart = buffer.position();
+
+        try {
+          var tag = buffer.get();
+
+          if (tag == TAG_DICTIONARY_ENTRY) {
+            var id = (int) getVarLong(buffer);
+            var utf8 = new byte[(int) getVarLong(buffer)];
+
+            buffer.get(utf8);
+            dictionary.add(id, new String(utf8, StandardCharsets.UTF_8));
+
+            continue;
+          }
+
+          if (tag != TAG_SAMPLE) {
+            throw new IOException(format("Unrecognised record tag %d in result log file: %s", tag, filePath));
+          }
+
+          var sample = new LoggedSample();
+
+          sample.startTime = lastStartTime + getZigZagLong(buffer);
+          sample.elapsed = getVarLong(buffer);
+          sample.latency = getVarLong(buffer);
+          sample.connectTime = getVarLong(buffer);
+          sample.bytes = getVarLong(buffer);
+          sample.sentBytes = getVarLong(buffer);
+          sample.errorCount = getVarLong(buffer);
+          sample.success = buffer.get() == 1;
+          sample.label = dictionary.get((int) getVarLong(buffer));
+          sample.responseCode = dictionary.get((int) getVarLong(buffer));
+          sample.threadName = dictionary.get((int) getVarLong(buffer));
+
+          lastStartTime = sample.startTime;
+
+          sampleConsumer.accept(sample);
+        } catch (BufferUnderflowException e) {
+          // what a crash mid write leaves behind
+          LOG.log(
+              System.Logger.Level.WARNING,
+              "Result log file {0} ends with an incomplete record at byte {1}, stopping at the last complete record",
+              filePath,
+              recordStart
+          );
+
+          return;
+        }
+      }
+    }
+  }
+
+  private static String csvValue(String value) {
+    if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+      return value;
+    }
+
+    return '"' + value.replace("\"", "\"\"") + '"';
+  }
+}
@@ -0,0 +1,153 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import static org.apache.commons.lang3.StringUtils.defaultString;
+
+import static io.github.djfdyuruiry.jmeter.azure.BinaryResultLog.*;
+
+/**
+ * Appends every sample to a compact local log (see {@link BinaryResultLog} for the layout), rotating to
+ * a new numbered file once the current one reaches the rotation size.
+ */
+class BinaryResultLogWriter implements AutoCloseable {
+  private static final int BUFFER_SIZE = 256 * 1024;
+  // larger than the biggest record: a sample plus three maximum length dictionary entries
+  private static final int FLUSH_THRESHOLD = 16 * 1024;
+
+  private final Path basePath;
+  private final long rotateBytes;
+  private final ByteBuffer buffer;
+  private final Map<String, Integer> dictionary;
+
+  private FileChannel channel;
+  private int fileIndex;
+  private long lastStartTime;
+
+  public BinaryResultLogWriter(Path basePath, long rotateBytes) throws IOException {
+    this.basePath = basePath;
+    this.rotateBytes = rotateBytes;
+
+    buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    dictionary = new HashMap<>();
+
+    createParentDirectories(basePath);
+    openNextFile();
+  }
+
+  public void write(SampleResult result) throws IOException {
+    if (buffer.remaining() < FLUSH_THRESHOLD) {
+      flush();
+    }
+
+    var labelId = idOf(result.getSampleLabel());
+    var responseCodeId = idOf(result.getResponseCode());
+    var threadNameId = idOf(result.getThreadName());
+
+    buffer.put(TAG_SAMPLE);
+    putZigZagLong(buffer, result.getStartTime() - lastStartTime);
+    putVarLong(buffer, result.getTime());
+    putVarLong(buffer, result.getLatency());
+    putVarLong(buffer, result.getConnectTime());
+    putVarLong(buffer, result.getBytesAsLong());
+    putVarLong(buffer, result.getSentBytes());
+    putVarLong(buffer, result.getErrorCount());
+    buffer.put((byte) (result.isSuccessful() ? 1 : 0));
+    putVarLong(buffer, labelId);
+    putVarLong(buffer, responseCodeId);
+    putVarLong(buffer, threadNameId);
+
+    lastStartTime = result.getStartTime();
+  }
+
+  /**
+   * Hands buffered records to the OS, so they survive the JVM crashing, and rotates if due.
+   */
+  public void flush() throws IOException {
+    writeBuffer();
+    rotateIfDue();
+  }
+
+  @Override
+  public void close() throws IOException {
+    writeBuffer();
+    channel.close();
+  }
+
+  private void writeBuffer() throws IOException {
+    buffer.flip();
+
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+
+    buffer.clear();
+  }
+
+  private static void createParentDirectories(Path basePath) throws IOException {
+    var parent = basePath.toAbsolutePath().getParent();
+
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+  }
+
+  private int idOf(String value) {
+    var key = defaultString(value);
+
+    if (key.length() > MAX_STRING_CHARS) {
+      key = key.substring(0, MAX_STRING_CHARS);
+    }
+
+    var id = dictionary.get(key);
+
+    if (id != null) {
+      return id;
+    }
+
+    var newId = dictionary.size();
+    var utf8 = key.getBytes(StandardCharsets.UTF_8);
+
+    buffer.put(TAG_DICTIONARY_ENTRY);
+    putVarLong(buffer, newId);
+    putVarLong(buffer, utf8.length);
+    buffer.put(utf8);
+
+    dictionary.put(key, newId);
+
+    return newId;
+  }
+
+  private void rotateIfDue() throws IOException {
+    if (channel.position() < rotateBytes) {
+      return;
+    }
+
+    channel.close();
+    openNextFile();
+  }
+
+  private void openNextFile() throws IOException {
+    channel = FileChannel.open(
+        filePath(basePath, fileIndex++),
+        StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE
+    );
+
+    dictionary.clear();
+    lastStartTime = 0;
+
+    buffer.putInt(MAGIC);
+  }
+}
@@ -0,0 +1,58 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.microsoft.applicationinsights.channel.TelemetryChannel;
+import com.microsoft.applicationinsights.channel.TelemetrySampler;
+import com.microsoft.applicationinsights.telemetry.Telemetry;
+
+/**
+ * Decorates the SDK channel to count the items that make it through the telemetry client into the
+ * channel, for the delivery report logged at the end of a test.
+ */
+class CountingTelemetryChannel implements TelemetryChannel {
+  private final TelemetryChannel channel;
+  private final LongAdder itemsSent;
+
+  CountingTelemetryChannel(TelemetryChannel channel) {
+    this.channel = channel;
+
+    itemsSent = new LongAdder();
+  }
+
+  public long getItemsSent() {
+    return itemsSent.sum();
+  }
+
+  @Override
+  public boolean isDeveloperMode() {
+    return channel.isDeveloperMode();
+  }
+
+  @Override
+  public void setDeveloperMode(boolean developerMode) {
+    channel.setDeveloperMode(developerMode);
+  }
+
+  @Override
+  public void send(Telemetry item) {
+    itemsSent.increment();
+    channel.send(item);
+  }
+
+  @Override
+  public void stop(long timeout, TimeUnit timeUnit) {
+    channel.stop(timeout, timeUnit);
+  }
+
+  @Override
+  public void flush() {
+    channel.flush();
+  }
+
+  @Override
+  public void setSampler(TelemetrySampler telemetrySampler) {
+    channel.setSampler(telemetrySampler);
+  }
+}
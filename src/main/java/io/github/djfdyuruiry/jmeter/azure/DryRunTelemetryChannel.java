@@ -0,0 +1,190 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.microsoft.applicationinsights.channel.TelemetryChannel;
+import com.microsoft.applicationinsights.channel.TelemetrySampler;
+import com.microsoft.applicationinsights.telemetry.JsonTelemetryDataSerializer;
+import com.microsoft.applicationinsights.telemetry.RequestTelemetry;
+import com.microsoft.applicationinsights.telemetry.Telemetry;
+
+/**
+ * Serializes every item exactly as the SDK would before transmission, then discards it. Keeps
+ * running totals so a test can be sized for ingestion volume without sending anything.
+ */
+class DryRunTelemetryChannel implements TelemetryChannel {
+  private static final Logger LOG = LoggerFactory.getLogger(DryRunTelemetryChannel.class);
+
+  private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+  private static final double NANOS_PER_MICROSECOND = 1000.0;
+  private static final double BYTES_PER_GB = 1_000_000_000.0;
+  private static final double SECONDS_PER_HOUR = 3600.0;
+
+  // quotes around name and value, colon and comma
+  private static final int JSON_FIELD_OVERHEAD_BYTES = 6;
+
+  private final LongSupplier nanoClock;
+  private final long startNanos;
+
+  private final LongAdder items;
+  private final LongAdder bytes;
+  private final LongAdder requests;
+  private final LongAdder requestBytes;
+  private final LongAdder mappingNanos;
+  private final LongAdder mappedSamples;
+  private final Map<String, LongAdder> requestFieldBytes;
+
+  DryRunTelemetryChannel() {
+    this(System::nanoTime);
+  }
+
+  DryRunTelemetryChannel(LongSupplier nanoClock) {
+    this.nanoClock = nanoClock;
+
+    startNanos = nanoClock.getAsLong();
+
+    items = new LongAdder();
+    bytes = new LongAdder();
+    requests = new LongAdder();
+    requestBytes = new LongAdder();
+    mappingNanos = new LongAdder();
+    mappedSamples = new LongAdder();
+    requestFieldBytes = new ConcurrentHashMap<>();
+  }
+
+  public void recordMappingCost(long nanos) {
+    mappingNanos.add(nanos);
+    mappedSamples.increment();
+  }
+
+  public long getItems() {
+    return items.sum();
+  }
+
+  public long getBytes() {
+    return bytes.sum();
+  }
+
+  public double getBytesPerRequest() {
+    var requestCount = requests.sum();
+
+    return requestCount > 0 ? (double) requestBytes.sum() / requestCount : 0;
+  }
+
+  public double getFieldBytesPerRequest(String fieldName) {
+    var fieldBytes = requestFieldBytes.get(fieldName);
+    var requestCount = requests.sum();
+
+    return fieldBytes != null && requestCount > 0 ? (double) fieldBytes.sum() / requestCount : 0;
+  }
+
+  public double getProjectedGbPerHour() {
+    var elapsedSeconds = (nanoClock.getAsLong() - startNanos) / NANOS_PER_SECOND;
+
+    return elapsedSeconds > 0 ? bytes.sum() / elapsedSeconds * SECONDS_PER_HOUR / BYTES_PER_GB : 0;
+  }
+
+  public double getMappingMicrosPerSample() {
+    var sampleCount = mappedSamples.sum();
+
+    return sampleCount > 0 ? mappingNanos.sum() / NANOS_PER_MICROSECOND / sampleCount : 0;
+  }
+
+  public void logReport() {
+    LOG.info(
+        "Dry run report: items={}, bytes={}, requests={}, bytes/request={}, projected GB/hour={}, " +
+            "mapping cost={}us/sample",
+        getItems(),
+        getBytes(),
+        requests.sum(),
+        String.format("%.1f", getBytesPerRequest()),
+        String.format("%.3f", getProjectedGbPerHour()),
+        String.format("%.2f", getMappingMicrosPerSample())
+    );
+
+    requestFieldBytes.keySet().stream()
+        .sorted()
+        .forEach(f ->
+            LOG.info("Dry run report: field {} bytes/request={}", f, String.format("%.1f", getFieldBytesPerRequest(f)))
+        );
+  }
+
+  @Override
+  public boolean isDeveloperMode() {
+    return false;
+  }
+
+  @Override
+  public void setDeveloperMode(boolean developerMode) {
+  }
+
+  @Override
+  public void send(Telemetry item) {
+    var itemBytes = serializedSize(item);
+
+    items.increment();
+    bytes.add(itemBytes);
+
+    if (!(item instanceof RequestTelemetry)) {
+      return;
+    }
+
+    var request = (RequestTelemetry) item;
+
+    requests.increment();
+    requestBytes.add(itemBytes);
+
+    request.getProperties().forEach((name, value) -> recordFieldBytes(name, value));
+    request.getMetrics().forEach((name, value) -> recordFieldBytes(name, String.valueOf(value)));
+  }
+
+  private void recordFieldBytes(String name, String value) {
+    var fieldBytes = utf8Length(name) + utf8Length(value) + JSON_FIELD_OVERHEAD_BYTES;
+
+    requestFieldBytes.computeIfAbsent(name, n -> new LongAdder()).add(fieldBytes);
+  }
+
+  private static int serializedSize(Telemetry item) {
+    var json = new StringWriter();
+
+    try {
+      var serializer = new JsonTelemetryDataSerializer(json);
+
+      item.serialize(serializer);
+      serializer.close();
+    } catch (IOException e) {
+      LOG.error("Error serializing telemetry item in dry run", e);
+
+      return 0;
+    }
+
+    return utf8Length(json.toString());
+  }
+
+  private static int utf8Length(String value) {
+    return value == null ? 0 : value.getBytes(UTF_8).length;
+  }
+
+  @Override
+  public void stop(long timeout, TimeUnit timeUnit) {
+  }
+
+  @Override
+  public void flush() {
+  }
+
+  @Override
+  public void setSampler(TelemetrySampler telemetrySampler) {
+  }
+}
@@ -0,0 +1,173 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import static org.apache.commons.lang3.StringUtils.EMPTY;
+import static org.apache.commons.lang3.StringUtils.defaultString;
+
+import com.microsoft.applicationinsights.telemetry.RequestTelemetry;
+
+/**
+ * Attaches a truncated response message and body to failed samples, within a UTF-8 byte budget per interval.
+ * Each distinct payload is sent once, repeats only carry its hash.
+ */
+class FailurePayloadCapture {
+  private static final String PROPERTY_RESPONSE_MESSAGE = "FailureResponseMessage";
+  private static final String PROPERTY_RESPONSE_BODY = "FailureResponseBody";
+  private static final String PROPERTY_PAYLOAD_HASH = "FailurePayloadHash";
+  private static final String PROPERTY_PAYLOAD_DROPPED = "FailurePayloadDropped";
+
+  private static final int MAX_REMEMBERED_HASHES = 4096;
+
+  // no common charset needs more than this to encode a single character
+  private static final int MAX_SOURCE_BYTES_PER_CHAR = 4;
+
+  private final int maxItemBytes;
+  private final long budgetBytes;
+  private final long budgetIntervalMs;
+  private final LongSupplier clock;
+  private final Map<String, Boolean> sentHashes;
+
+  private long budgetUsedBytes;
+  private long budgetIntervalStartMs;
+
+  public FailurePayloadCapture(int maxItemBytes, long budgetBytes, long budgetIntervalMs) {
+    this(maxItemBytes, budgetBytes, budgetIntervalMs, System::currentTimeMillis);
+  }
+
+  FailurePayloadCapture(int maxItemBytes, long budgetBytes, long budgetIntervalMs, LongSupplier clock) {
+    this.maxItemBytes = maxItemBytes;
+    this.budgetBytes = budgetBytes;
+    this.budgetIntervalMs = budgetIntervalMs;
+    this.clock = clock;
+
+    sentHashes = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+        return size() > MAX_REMEMBERED_HASHES;
+      }
+    };
+
+    budgetIntervalStartMs = clock.getAsLong();
+  }
+
+  public void capture(SampleResult jmeterRequest, RequestTelemetry telemetry) {
+    if (jmeterRequest.getErrorCount() == 0) {
+      return;
+    }
+
+    var message = truncate(defaultString(jmeterRequest.getResponseMessage()));
+    var body = truncate(decodeBody(jmeterRequest));
+
+    var hash = hash(jmeterRequest.getResponseCode(), message, body);
+    var properties = telemetry.getProperties();
+
+    properties.put(PROPERTY_PAYLOAD_HASH, hash);
+
+    if (sentHashes.containsKey(hash)) {
+      return;
+    }
+
+    var cost = utf8Length(message) + utf8Length(body);
+
+    if (!reserveBudget(cost)) {
+      properties.put(PROPERTY_PAYLOAD_DROPPED, Boolean.TRUE.toString());
+
+      return;
+    }
+
+    sentHashes.put(hash, Boolean.TRUE);
+
+    properties.put(PROPERTY_RESPONSE_MESSAGE, message);
+    properties.put(PROPERTY_RESPONSE_BODY, body);
+  }
+
+  private boolean reserveBudget(long cost) {
+    var nowMs = clock.getAsLong();
+
+    if (nowMs - budgetIntervalStartMs >= budgetIntervalMs) {
+      budgetIntervalStartMs = nowMs;
+      budgetUsedBytes = 0;
+    }
+
+    if (budgetUsedBytes + cost > budgetBytes) {
+      return false;
+    }
+
+    budgetUsedBytes += cost;
+
+    return true;
+  }
+
+  private String decodeBody(SampleResult jmeterRequest) {
+    var body = jmeterRequest.getResponseData();
+    var decodeLength = (int) Math.min(body.length, (long) maxItemBytes * MAX_SOURCE_BYTES_PER_CHAR);
+
+    return decodeLength > 0
+        ? new String(body, 0, decodeLength, charsetOf(jmeterRequest))
+        : EMPTY;
+  }
+
+  /**
+   * Cuts the value to at most maxItemBytes once encoded as UTF-8, without splitting a character.
+   */
+  private String truncate(String value) {
+    var bytes = 0;
+    var end = 0;
+
+    while (end < value.length()) {
+      var codePoint = value.codePointAt(end);
+      var codePointBytes = utf8Length(codePoint);
+
+      if (bytes + codePointBytes > maxItemBytes) {
+        break;
+      }
+
+      bytes += codePointBytes;
+      end += Character.charCount(codePoint);
+    }
+
+    return value.substring(0, end);
+  }
+
+  private static int utf8Length(String value) {
+    return value.codePoints().map(FailurePayloadCapture::utf8Length).sum();
+  }
+
+  private static int utf8Length(int codePoint) {
+    if (codePoint < 0x80) {
+      return 1;
+    }
+
+    if (codePoint < 0x800) {
+      return 2;
+    }
+
+    return codePoint < 0x10000 ? 3 : 4;
+  }
+
+  private static String hash(String responseCode, String message, String body) {
+    var crc = new CRC32();
+
+    crc.update(defaultString(responseCode).getBytes(StandardCharsets.UTF_8));
+    crc.update(message.getBytes(StandardCharsets.UTF_8));
+    crc.update(body.getBytes(StandardCharsets.UTF_8));
+
+    return Long.toHexString(crc.getValue());
+  }
+
+  private static Charset charsetOf(SampleResult jmeterRequest) {
+    try {
+      return Charset.forName(jmeterRequest.getDataEncodingWithDefault());
+    } catch (IllegalArgumentException e) {
+      return StandardCharsets.UTF_8;
+    }
+  }
+}
@@ -0,0 +1,222 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import static com.sun.management.GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Watches old generation usage after GC and the share of wall time spent in GC pauses, and steps
+ * through {@link LoadSheddingLevel}s one at a time as pressure rises and falls.
+ */
+class HeapPressureMonitor implements NotificationListener {
+  private static final Logger LOG = LoggerFactory.getLogger(HeapPressureMonitor.class);
+
+  private static final long EVALUATION_INTERVAL_MS = 1000;
+  private static final long STEP_DOWN_DELAY_MS = 30000;
+  // a level is only left once pressure is below this share of the threshold that entered it
+  private static final double STEP_DOWN_THRESHOLD_RATIO = 0.9;
+
+  private final double[] heapUsageThresholds;
+  private final double[] gcOverheadThresholds;
+  private final BiConsumer<LoadSheddingLevel, LoadSheddingLevel> transitionListener;
+  private final LongSupplier clock;
+  private final List<MemoryPoolMXBean> tenuredPools;
+  private final AtomicLong gcPauseMs;
+
+  private volatile LoadSheddingLevel level;
+
+  private long lastEvaluationMs;
+  private long lastTransitionMs;
+  private double lastHeapUsage;
+  private double lastGcOverhead;
+
+  public HeapPressureMonitor(
+      double[] heapUsageThresholds,
+      double[] gcOverheadThresholds,
+      BiConsumer<LoadSheddingLevel, LoadSheddingLevel> transitionListener
+  ) {
+    this(heapUsageThresholds, gcOverheadThresholds, transitionListener, System::currentTimeMillis);
+  }
+
+  HeapPressureMonitor(
+      double[] heapUsageThresholds,
+      double[] gcOverheadThresholds,
+      BiConsumer<LoadSheddingLevel, LoadSheddingLevel> transitionListener,
+      LongSupplier clock
+  ) {
+    this.heapUsageThresholds = heapUsageThresholds;
+    this.gcOverheadThresholds = gcOverheadThresholds;
+    this.transitionListener = transitionListener;
+    this.clock = clock;
+
+    // eden and survivor spaces do not support usage thresholds, which leaves the tenured pool(s)
+    tenuredPools = ManagementFactory.getMemoryPoolMXBeans()
+        .stream()
+        .filter(p -> p.getType() == MemoryType.HEAP)
+        .filter(MemoryPoolMXBean::isUsageThresholdSupported)
+        .filter(MemoryPoolMXBean::isCollectionUsageThresholdSupported)
+        .collect(Collectors.toList());
+
+    gcPauseMs = new AtomicLong();
+    level = LoadSheddingLevel.NONE;
+  }
+
+  public void start() {
+    lastEvaluationMs = clock.getAsLong();
+    lastTransitionMs = lastEvaluationMs;
+
+    for (var gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (gcBean instanceof NotificationEmitter) {
+        ((NotificationEmitter) gcBean).addNotificationListener(this, null, null);
+      }
+    }
+  }
+
+  public void stop() {
+    for (var gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (!(gcBean instanceof NotificationEmitter)) {
+        continue;
+      }
+
+      try {
+        ((NotificationEmitter) gcBean).removeNotificationListener(this);
+      } catch (ListenerNotFoundException e) {
+        LOG.debug("GC notification listener was not registered for {}", gcBean.getName());
+      }
+    }
+  }
+
+  @Override
+  public void handleNotification(Notification notification, Object handback) {
+    if (!GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+      return;
+    }
+
+    var gcNotification = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+    var gcName = gcNotification.getGcName();
+
+    // concurrent cycles run alongside the application, only pauses count against throughput
+    if (gcName.contains("Concurrent") || gcName.contains("Cycles")) {
+      return;
+    }
+
+    gcPauseMs.addAndGet(gcNotification.getGcInfo().getDuration());
+  }
+
+  /**
+   * Re-evaluates the shedding level at most once per second; cheap enough to call for every batch.
+   */
+  public LoadSheddingLevel evaluate() {
+    var nowMs = clock.getAsLong();
+    var elapsedMs = nowMs - lastEvaluationMs;
+
+    if (elapsedMs < EVALUATION_INTERVAL_MS) {
+      return level;
+    }
+
+    lastEvaluationMs = nowMs;
+
+    return evaluate(readHeapUsage(), (double) gcPauseMs.getAndSet(0) / elapsedMs, nowMs);
+  }
+
+  LoadSheddingLevel evaluate(double heapUsage, double gcOverhead, long nowMs) {
+    lastHeapUsage = heapUsage;
+    lastGcOverhead = gcOverhead;
+
+    var currentLevel = level;
+    var newLevel = currentLevel;
+
+    if (targetLevel(heapUsage, gcOverhead, 1.0).compareTo(currentLevel) > 0) {
+      newLevel = currentLevel.up();
+    } else if (
+        targetLevel(heapUsage, gcOverhead, STEP_DOWN_THRESHOLD_RATIO).compareTo(currentLevel) < 0 &&
+        nowMs - lastTransitionMs >= STEP_DOWN_DELAY_MS
+    ) {
+      newLevel = currentLevel.down();
+    }
+
+    if (newLevel != currentLevel) {
+      LOG.warn(
+          "Load shedding level changed from {} to {} (heap usage after GC: {}, GC overhead: {})",
+          currentLevel,
+          newLevel,
+          heapUsage,
+          gcOverhead
+      );
+
+      level = newLevel;
+      lastTransitionMs = nowMs;
+
+      transitionListener.accept(currentLevel, newLevel);
+    }
+
+    return newLevel;
+  }
+
+  public LoadSheddingLevel getLevel() {
+    return level;
+  }
+
+  public double getLastHeapUsage() {
+    return lastHeapUsage;
+  }
+
+  public double getLastGcOverhead() {
+    return lastGcOverhead;
+  }
+
+  private double readHeapUsage() {
+    var heapUsage = 0.0;
+
+    for (var pool : tenuredPools) {
+      var usage = pool.getCollectionUsage();
+
+      if (usage == null || usage.getMax() <= 0) {
+        continue;
+      }
+
+      heapUsage = Math.max(heapUsage, (double) usage.getUsed() / usage.getMax());
+    }
+
+    return heapUsage;
+  }
+
+  private LoadSheddingLevel targetLevel(double heapUsage, double gcOverhead, double thresholdRatio) {
+    var exceeded = Math.max(
+        countExceeded(heapUsage, heapUsageThresholds, thresholdRatio),
+        countExceeded(gcOverhead, gcOverheadThresholds, thresholdRatio)
+    );
+
+    return LoadSheddingLevel.values()[exceeded];
+  }
+
+  private static int countExceeded(double value, double[] thresholds, double thresholdRatio) {
+    var exceeded = 0;
+
+    for (var threshold : thresholds) {
+      if (value >= threshold * thresholdRatio) {
+        exceeded++;
+      }
+    }
+
+    return exceeded;
+  }
+}
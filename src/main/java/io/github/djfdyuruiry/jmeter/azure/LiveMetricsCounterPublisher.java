@@ -0,0 +1,367 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Speaks the Live Metrics (QuickPulse) protocol using {@link LiveMetricsCounters} as its only data
+ * source: the service is pinged until a portal session subscribes, then a data point is posted every
+ * second until the service reports the session has gone. Endpoint redirects and polling interval hints
+ * sent by the service are followed, and error responses back the ping interval off.
+ */
+class LiveMetricsCounterPublisher {
+  public static final String DEFAULT_ENDPOINT = "https://rt.services.visualstudio.com/QuickPulseService.svc";
+
+  static class Response {
+    private final int statusCode;
+    private final boolean subscribed;
+    private final String redirectEndpoint;
+    private final long pollingIntervalHintMs;
+
+    Response(int statusCode, boolean subscribed, String redirectEndpoint, long pollingIntervalHintMs) {
+      this.statusCode = statusCode;
+      this.subscribed = subscribed;
+      this.redirectEndpoint = redirectEndpoint;
+      this.pollingIntervalHintMs = pollingIntervalHintMs;
+    }
+
+    public int getStatusCode() {
+      return statusCode;
+    }
+
+    public boolean isSubscribed() {
+      return subscribed;
+    }
+
+    /**
+     * Null unless the service asked for this stream to move to another endpoint.
+     */
+    public String getRedirectEndpoint() {
+      return redirectEndpoint;
+    }
+
+    /**
+     * Zero unless the service asked for a different ping interval.
+     */
+    public long getPollingIntervalHintMs() {
+      return pollingIntervalHintMs;
+    }
+  }
+
+  interface Transport {
+    Response send(URI uri, Map<String, String> headers, String body) throws IOException, InterruptedException;
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(LiveMetricsCounterPublisher.class);
+
+  private static final long TICK_MS = 1000;
+  private static final long DEFAULT_PING_INTERVAL_MS = 5000;
+  private static final long MAX_PING_INTERVAL_MS = 60000;
+  private static final String SERVICE_PATH = "QuickPulseService.svc";
+  private static final int INVARIANT_VERSION = 1;
+  private static final String VERSION = "jmeter-azure-app-insights";
+  private static final String ROLE_NAME = "jmeter";
+
+  private static final String HEADER_TRANSMISSION_TIME = "x-ms-qps-transmission-time";
+  private static final String HEADER_STREAM_ID = "x-ms-qps-stream-id";
+  private static final String HEADER_MACHINE_NAME = "x-ms-qps-machine-name";
+  private static final String HEADER_INSTANCE_NAME = "x-ms-qps-instance-name";
+  private static final String HEADER_ROLE_NAME = "x-ms-qps-role-name";
+  private static final String HEADER_INVARIANT_VERSION = "x-ms-qps-invariant-version";
+  private static final String HEADER_SUBSCRIBED = "x-ms-qps-subscribed";
+  private static final String HEADER_ENDPOINT_REDIRECT = "x-ms-qps-service-endpoint-redirect-v2";
+  private static final String HEADER_POLLING_INTERVAL_HINT = "x-ms-qps-service-polling-interval-hint";
+
+  private static final String METRIC_REQUESTS_PER_SECOND = "\\\\ApplicationInsights\\\\Requests/Sec";
+  private static final String METRIC_REQUEST_DURATION = "\\\\ApplicationInsights\\\\Request Duration";
+  private static final String METRIC_REQUESTS_FAILED_PER_SECOND = "\\\\ApplicationInsights\\\\Requests Failed/Sec";
+  private static final String METRIC_REQUESTS_SUCCEEDED_PER_SECOND =
+      "\\\\ApplicationInsights\\\\Requests Succeeded/Sec";
+  private static final String METRIC_COMMITTED_BYTES = "\\\\Memory\\\\Committed Bytes";
+
+  // .NET ticks (100ns since 0001-01-01) at the unix epoch
+  private static final long EPOCH_TICKS = 621_355_968_000_000_000L;
+  private static final long TICKS_PER_MS = 10_000;
+
+  private final String instrumentationKey;
+  private final LiveMetricsCounters counters;
+  private final Transport transport;
+  private final LongSupplier clock;
+
+  private final String streamId;
+  private final String machineName;
+
+  private ScheduledExecutorService scheduler;
+  private URI pingUri;
+  private URI postUri;
+  private boolean subscribed;
+  private long pingIntervalMs;
+  private long nextPingMs;
+  private long lastTickMs;
+  private String lastError;
+
+  LiveMetricsCounterPublisher(String endpoint, String instrumentationKey, LiveMetricsCounters counters) {
+    this(endpoint, instrumentationKey, counters, new HttpTransport(), System::currentTimeMillis);
+  }
+
+  LiveMetricsCounterPublisher(
+      String endpoint,
+      String instrumentationKey,
+      LiveMetricsCounters counters,
+      Transport transport,
+      LongSupplier clock
+  ) {
+    this.instrumentationKey = instrumentationKey;
+    this.counters = counters;
+    this.transport = transport;
+    this.clock = clock;
+
+    streamId = UUID.randomUUID().toString().replace("-", "");
+    machineName = lookupMachineName();
+    lastTickMs = clock.getAsLong();
+    pingIntervalMs = DEFAULT_PING_INTERVAL_MS;
+
+    useEndpoint(endpoint);
+  }
+
+  public boolean isSubscribed() {
+    return subscribed;
+  }
+
+  URI getPingUri() {
+    return pingUri;
+  }
+
+  private void useEndpoint(String endpoint) {
+    var baseEndpoint = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+
+    if (!baseEndpoint.endsWith(SERVICE_PATH)) {
+      // redirects may only name the host
+      baseEndpoint = format("%s/%s", baseEndpoint, SERVICE_PATH);
+    }
+
+    var ikeyParameter = URLEncoder.encode(instrumentationKey, UTF_8);
+
+    pingUri = URI.create(format("%s/ping?ikey=%s", baseEndpoint, ikeyParameter));
+    postUri = URI.create(format("%s/post?ikey=%s", baseEndpoint, ikeyParameter));
+  }
+
+  public void start() {
+    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      var thread = new Thread(r, "app-insights-live-metrics");
+
+      thread.setDaemon(true);
+
+      return thread;
+    });
+
+    scheduler.scheduleAtFixedRate(this::tick, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+  }
+
+  public void stop() {
+    if (scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  void tick() {
+    var nowMs = clock.getAsLong();
+    var elapsedSeconds = (nowMs - lastTickMs) / 1000.0;
+
+    lastTickMs = nowMs;
+
+    // drained even when nobody is watching, so a new session starts from current rates
+    var totals = counters.drain();
+
+    if (!subscribed && nowMs < nextPingMs) {
+      return;
+    }
+
+    try {
+      var response = subscribed
+          ? transport.send(postUri, buildHeaders(nowMs), buildDataPoints(totals, elapsedSeconds, nowMs))
+          : transport.send(pingUri, buildHeaders(nowMs), buildPing(nowMs));
+
+      handleResponse(response, nowMs);
+    } catch (IOException e) {
+      backOff(e.toString(), nowMs);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void handleResponse(Response response, long nowMs) {
+    if (response.getStatusCode() >= 400) {
+      backOff(format("status %d", response.getStatusCode()), nowMs);
+
+      return;
+    }
+
+    if (lastError != null) {
+      LOG.info("Live metrics service reachable again");
+      lastError = null;
+    }
+
+    if (response.getRedirectEndpoint() != null && !response.getRedirectEndpoint().isBlank()) {
+      LOG.info("Live metrics service redirected to {}", response.getRedirectEndpoint());
+      useEndpoint(response.getRedirectEndpoint());
+    }
+
+    pingIntervalMs = response.getPollingIntervalHintMs() > 0
+        ? response.getPollingIntervalHintMs()
+        : DEFAULT_PING_INTERVAL_MS;
+
+    var wasSubscribed = subscribed;
+
+    subscribed = response.isSubscribed();
+
+    if (subscribed && !wasSubscribed) {
+      LOG.info("Live metrics session started");
+    } else if (!subscribed && wasSubscribed) {
+      LOG.info("Live metrics session ended");
+    }
+
+    if (!subscribed) {
+      nextPingMs = nowMs + pingIntervalMs;
+    }
+  }
+
+  private void backOff(String error, long nowMs) {
+    // a bad key or endpoint fails every ping for the whole test, so only changes are logged
+    if (!error.equals(lastError)) {
+      LOG.warn("Error sending live metrics ({}), retrying with back off", error);
+      lastError = error;
+    }
+
+    subscribed = false;
+    pingIntervalMs = Math.min(pingIntervalMs * 2, MAX_PING_INTERVAL_MS);
+    nextPingMs = nowMs + pingIntervalMs;
+  }
+
+  private Map<String, String> buildHeaders(long nowMs) {
+    var headers = new LinkedHashMap<String, String>();
+
+    headers.put(HEADER_TRANSMISSION_TIME, Long.toString(toTicks(nowMs)));
+    headers.put(HEADER_STREAM_ID, streamId);
+    headers.put(HEADER_MACHINE_NAME, machineName);
+    headers.put(HEADER_INSTANCE_NAME, machineName);
+    headers.put(HEADER_ROLE_NAME, ROLE_NAME);
+    headers.put(HEADER_INVARIANT_VERSION, Integer.toString(INVARIANT_VERSION));
+
+    return headers;
+  }
+
+  private String buildPing(long nowMs) {
+    return format("{%s}", buildEnvelopeFields(nowMs));
+  }
+
+  String buildDataPoints(LiveMetricsCounters.Totals totals, double elapsedSeconds, long nowMs) {
+    var seconds = elapsedSeconds > 0 ? elapsedSeconds : 1;
+
+    return format(
+        "[{%s,\"Metrics\":[%s,%s,%s,%s,%s]}]",
+        buildEnvelopeFields(nowMs),
+        buildMetric(METRIC_REQUESTS_PER_SECOND, totals.getRequests() / seconds, 1),
+        buildMetric(METRIC_REQUEST_DURATION, totals.getAverageDurationMs(), Math.max(1, totals.getRequests())),
+        buildMetric(METRIC_REQUESTS_FAILED_PER_SECOND, totals.getFailedRequests() / seconds, 1),
+        buildMetric(METRIC_REQUESTS_SUCCEEDED_PER_SECOND, totals.getSucceededRequests() / seconds, 1),
+        buildMetric(METRIC_COMMITTED_BYTES, Runtime.getRuntime().totalMemory(), 1)
+    );
+  }
+
+  private String buildEnvelopeFields(long nowMs) {
+    return format(
+        "\"Documents\":null,\"Instance\":\"%s\",\"InstrumentationKey\":\"%s\",\"InvariantVersion\":%d," +
+            "\"MachineName\":\"%s\",\"RoleName\":\"%s\",\"StreamId\":\"%s\",\"Timestamp\":\"\\/Date(%d)\\/\"," +
+            "\"Version\":\"%s\"",
+        escape(machineName),
+        escape(instrumentationKey),
+        INVARIANT_VERSION,
+        escape(machineName),
+        ROLE_NAME,
+        streamId,
+        nowMs,
+        VERSION
+    );
+  }
+
+  private static String buildMetric(String name, double value, long weight) {
+    return format("{\"Name\":\"%s\",\"Value\":%s,\"Weight\":%d}", name, value, weight);
+  }
+
+  private static long toTicks(long epochMs) {
+    return EPOCH_TICKS + epochMs * TICKS_PER_MS;
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  private static long parseLong(String value) {
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      return 0;
+    }
+  }
+
+  private static String lookupMachineName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      return "unknown";
+    }
+  }
+
+  private static class HttpTransport implements Transport {
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final HttpClient httpClient;
+
+    HttpTransport() {
+      httpClient = HttpClient.newBuilder()
+          .connectTimeout(TIMEOUT)
+          .build();
+    }
+
+    @Override
+    public Response send(URI uri, Map<String, String> headers, String body) throws IOException, InterruptedException {
+      var request = HttpRequest.newBuilder(uri)
+          .timeout(TIMEOUT)
+          .header("Content-Type", "application/json; charset=utf-8")
+          .POST(HttpRequest.BodyPublishers.ofString(body, UTF_8));
+
+      headers.forEach(request::header);
+
+      var response = httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding());
+      var responseHeaders = response.headers();
+
+      return new Response(
+          response.statusCode(),
+          responseHeaders.firstValue(HEADER_SUBSCRIBED).map(Boolean::parseBoolean).orElse(false),
+          responseHeaders.firstValue(HEADER_ENDPOINT_REDIRECT).orElse(null),
+          responseHeaders.firstValue(HEADER_POLLING_INTERVAL_HINT).map(LiveMetricsCounterPublisher::parseLong).orElse(0L)
+      );
+    }
+  }
+}
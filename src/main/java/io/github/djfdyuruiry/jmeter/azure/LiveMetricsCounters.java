@@ -0,0 +1,59 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+/**
+ * Lock-free request counters for the live metrics stream, recorded for every tracked sample whether
+ * or not it is sent as a request item, and drained once per second by the publisher.
+ */
+class LiveMetricsCounters {
+  static class Totals {
+    private final long requests;
+    private final long failedRequests;
+    private final long durationMs;
+
+    Totals(long requests, long failedRequests, long durationMs) {
+      this.requests = requests;
+      this.failedRequests = failedRequests;
+      this.durationMs = durationMs;
+    }
+
+    public long getRequests() {
+      return requests;
+    }
+
+    public long getFailedRequests() {
+      return failedRequests;
+    }
+
+    public long getSucceededRequests() {
+      return Math.max(0, requests - failedRequests);
+    }
+
+    public double getAverageDurationMs() {
+      return requests > 0 ? (double) durationMs / requests : 0;
+    }
+  }
+
+  private final LongAdder requests;
+  private final LongAdder failedRequests;
+  private final LongAdder durationMs;
+
+  LiveMetricsCounters() {
+    requests = new LongAdder();
+    failedRequests = new LongAdder();
+    durationMs = new LongAdder();
+  }
+
+  public void record(SampleResult result) {
+    requests.add(result.getSampleCount());
+    failedRequests.add(result.getErrorCount());
+    durationMs.add(result.getTime());
+  }
+
+  public Totals drain() {
+    return new Totals(requests.sumThenReset(), failedRequests.sumThenReset(), durationMs.sumThenReset());
+  }
+}
@@ -0,0 +1,37 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+enum LoadSheddingLevel {
+    NONE("None"),
+    DROP_HEAVY_FIELDS("DropHeavyFields"),
+    INCREASED_SAMPLING("IncreasedSampling"),
+    AGGREGATE_ONLY("AggregateOnly");
+
+    private String levelName;
+
+    private LoadSheddingLevel(String levelName) {
+        this.levelName = levelName;
+    }
+
+    public boolean isAtLeast(LoadSheddingLevel level) {
+        return compareTo(level) >= 0;
+    }
+
+    public LoadSheddingLevel up() {
+        var levels = values();
+
+        return ordinal() < levels.length - 1
+            ? levels[ordinal() + 1]
+            : this;
+    }
+
+    public LoadSheddingLevel down() {
+        return ordinal() > 0
+            ? values()[ordinal() - 1]
+            : this;
+    }
+
+    @Override
+    public String toString() {
+        return levelName;
+    }
+}
@@ -0,0 +1,42 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.util.Optional;
+
+import static org.apache.commons.lang3.StringUtils.isEmpty;
+
+/**
+ * Lookups on the raw <code>Name: value</code> header blocks JMeter records on HTTP samples.
+ */
+class RawHeaders {
+  private RawHeaders() {
+  }
+
+  public static Optional<String> find(String rawHeaders, String headerName) {
+    if (isEmpty(rawHeaders)) {
+      return Optional.empty();
+    }
+
+    var nameLength = headerName.length();
+    var lineStart = 0;
+
+    while (lineStart < rawHeaders.length()) {
+      var lineEnd = rawHeaders.indexOf('\n', lineStart);
+
+      if (lineEnd < 0) {
+        lineEnd = rawHeaders.length();
+      }
+
+      if (
+          rawHeaders.regionMatches(true, lineStart, headerName, 0, nameLength) &&
+          lineStart + nameLength < lineEnd &&
+          rawHeaders.charAt(lineStart + nameLength) == ':'
+      ) {
+        return Optional.of(rawHeaders.substring(lineStart + nameLength + 1, lineEnd).trim());
+      }
+
+      lineStart = lineEnd + 1;
+    }
+
+    return Optional.empty();
+  }
+}
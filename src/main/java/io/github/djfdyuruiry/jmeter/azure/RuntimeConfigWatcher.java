@@ -0,0 +1,84 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Polls a properties file for changes from the listener's scheduler thread. Loaded settings are
+ * parked until the listener thread picks them up between batches, so nothing on the sample path
+ * needs to lock.
+ */
+class RuntimeConfigWatcher {
+  private static final Logger LOG = LoggerFactory.getLogger(RuntimeConfigWatcher.class);
+
+  private final Path configFile;
+  private final AtomicReference<Properties> pendingConfig;
+
+  private long lastModifiedMs;
+
+  RuntimeConfigWatcher(Path configFile) {
+    this.configFile = configFile;
+
+    pendingConfig = new AtomicReference<>();
+
+    // the file as it is at startup is not applied, the listener's parameters win until it changes
+    lastModifiedMs = readLastModifiedMs();
+  }
+
+  public Path getConfigFile() {
+    return configFile;
+  }
+
+  /**
+   * Called on the scheduler thread.
+   */
+  public void check() {
+    try {
+      if (!Files.exists(configFile)) {
+        return;
+      }
+
+      var modifiedMs = Files.getLastModifiedTime(configFile).toMillis();
+
+      if (modifiedMs == lastModifiedMs) {
+        return;
+      }
+
+      var config = new Properties();
+
+      try (var reader = Files.newBufferedReader(configFile)) {
+        config.load(reader);
+      }
+
+      lastModifiedMs = modifiedMs;
+      pendingConfig.set(config);
+
+      LOG.info("Runtime configuration file changed: {}", configFile);
+    } catch (IOException e) {
+      LOG.error("Error reading runtime configuration file: {}", configFile, e);
+    }
+  }
+
+  private long readLastModifiedMs() {
+    try {
+      return Files.exists(configFile) ? Files.getLastModifiedTime(configFile).toMillis() : -1;
+    } catch (IOException e) {
+      LOG.warn("Unable to read modification time of runtime configuration file: {}", configFile, e);
+
+      return -1;
+    }
+  }
+
+  /**
+   * Called on the listener thread, returns null if nothing has changed since the last call.
+   */
+  public Properties poll() {
+    return pendingConfig.getAndSet(null);
+  }
+}
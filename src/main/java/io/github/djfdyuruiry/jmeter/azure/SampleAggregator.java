@@ -0,0 +1,73 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
+
+/**
+ * Rolls samples up per label so they can be sent as a handful of metrics per interval instead of
+ * one request item each. Unsynchronised, teardown only drains it once samples have stopped arriving.
+ */
+class SampleAggregator {
+  private static final String METRIC_DURATION = "RequestDuration";
+  private static final String METRIC_FAILURES = "RequestFailures";
+  private static final String PROPERTY_TEST_NAME = "TestName";
+  private static final String PROPERTY_SAMPLE_LABEL = "SampleLabel";
+
+  private static class Aggregate {
+    private int count;
+    private int failures;
+    private double totalMs;
+    private double minMs = Double.MAX_VALUE;
+    private double maxMs;
+  }
+
+  private final Map<String, Aggregate> aggregates;
+
+  SampleAggregator() {
+    aggregates = new HashMap<>();
+  }
+
+  public void add(SampleResult result) {
+    var aggregate = aggregates.computeIfAbsent(result.getSampleLabel(), l -> new Aggregate());
+    var durationMs = (double) result.getTime();
+
+    aggregate.count++;
+    aggregate.totalMs += durationMs;
+    aggregate.minMs = Math.min(aggregate.minMs, durationMs);
+    aggregate.maxMs = Math.max(aggregate.maxMs, durationMs);
+
+    if (result.getErrorCount() > 0) {
+      aggregate.failures++;
+    }
+  }
+
+  public boolean isEmpty() {
+    return aggregates.isEmpty();
+  }
+
+  public void drainTo(String testName, Consumer<MetricTelemetry> metricConsumer) {
+    aggregates.forEach((label, aggregate) -> {
+      var duration = new MetricTelemetry(METRIC_DURATION, aggregate.totalMs);
+
+      duration.setCount(aggregate.count);
+      duration.setMin(aggregate.minMs);
+      duration.setMax(aggregate.maxMs);
+
+      var failures = new MetricTelemetry(METRIC_FAILURES, aggregate.failures);
+
+      for (var metric : new MetricTelemetry[] { duration, failures }) {
+        metric.getProperties().put(PROPERTY_TEST_NAME, testName);
+        metric.getProperties().put(PROPERTY_SAMPLE_LABEL, label);
+
+        metricConsumer.accept(metric);
+      }
+    });
+
+    aggregates.clear();
+  }
+}
@@ -0,0 +1,47 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable, precompiled form of the <code>samplersList</code> and <code>useRegexForSamplerList</code>
+ * settings, so a new filter can be swapped in while the test is running.
+ */
+class SampleFilter {
+  private static final SampleFilter TRACK_ALL = new SampleFilter(null, null);
+
+  private final Pattern samplersPattern;
+  private final Set<String> samplersToTrack;
+
+  private SampleFilter(Pattern samplersPattern, Set<String> samplersToTrack) {
+    this.samplersPattern = samplersPattern;
+    this.samplersToTrack = samplersToTrack;
+  }
+
+  public static SampleFilter of(String samplersList, boolean useRegexForSamplerList, String separator) {
+    var trimmedSamplersList = samplersList.trim();
+
+    if (trimmedSamplersList.isEmpty()) {
+      return TRACK_ALL;
+    }
+
+    if (useRegexForSamplerList) {
+      return new SampleFilter(Pattern.compile(trimmedSamplersList), null);
+    }
+
+    return new SampleFilter(
+        null,
+        Arrays.stream(trimmedSamplersList.split(separator)).collect(Collectors.toUnmodifiableSet())
+    );
+  }
+
+  public boolean shouldTrack(String sampleLabel) {
+    if (samplersPattern != null) {
+      return samplersPattern.matcher(sampleLabel).matches();
+    }
+
+    return samplersToTrack == null || samplersToTrack.contains(sampleLabel);
+  }
+}
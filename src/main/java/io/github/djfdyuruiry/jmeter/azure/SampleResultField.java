@@ -5,7 +5,7 @@ import static java.lang.String.format;
 import static org.apache.commons.lang3.StringUtils.isBlank;
 
 enum SampleResultField {
-    REQUEST_URL("RequestUrl"),
+    REQUEST_URL("RequestUrl", true),
     BYTES("Bytes"),
     SENT_BYTES("SentBytes"),
     CONNECT_TIME("ConnectTime"),
@@ -23,13 +23,13 @@ enum SampleResultField {
     GROUP_THREADS("GroupThreads"),
     ALL_THREADS("AllThreads"),
     SAMPLE_COUNT("SampleCount"),
-    HTTP_URL("HttpUrl"),
+    HTTP_URL("HttpUrl", true),
     HTTP_METHOD("HttpMethod"),
-    HTTP_REQUEST_HEADERS("HttpRequestHeaders"),
-    HTTP_RESPONSE_HEADERS("HttpResponseHeaders"),
-    HTTP_COOKIES("HttpCookies"),
-    HTTP_QUERY_STRING("HttpQueryString"),
-    HTTP_REDIRECT("HttpRedirect");
+    HTTP_REQUEST_HEADERS("HttpRequestHeaders", true),
+    HTTP_RESPONSE_HEADERS("HttpResponseHeaders", true),
+    HTTP_COOKIES("HttpCookies", true),
+    HTTP_QUERY_STRING("HttpQueryString", true),
+    HTTP_REDIRECT("HttpRedirect", true);
 
     public static SampleResultField parse(String stringValue) {
         if (isBlank(stringValue)) {
@@ -50,9 +50,22 @@ enum SampleResultField {
     }
 
     private String fieldName;
+    private boolean heavy;
 
     private SampleResultField(String fieldName) {
+        this(fieldName, false);
+    }
+
+    private SampleResultField(String fieldName, boolean heavy) {
         this.fieldName = fieldName;
+        this.heavy = heavy;
+    }
+
+    /**
+     * Heavy fields carry free text (URLs, headers, cookies etc.) and are the first to be dropped under heap pressure.
+     */
+    public boolean isHeavy() {
+        return heavy;
     }
 
     @Override
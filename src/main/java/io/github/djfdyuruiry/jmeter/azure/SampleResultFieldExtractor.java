@@ -4,7 +4,23 @@ import org.apache.jmeter.samplers.SampleResult;
 
 import java.util.Optional;
 
+/**
+ * Extracts a single value from a sample result, sent as a property on the request telemetry.
+ *
+ * This is also a service provider interface: implementations with a public no-arg constructor that
+ * are listed in <code>META-INF/services/io.github.djfdyuruiry.jmeter.azure.SampleResultFieldExtractor</code>
+ * are discovered using {@link java.util.ServiceLoader} and can be enabled in <code>resultFields</code>
+ * by their {@link #getFieldName()}. Extractors are called for every sample on the listener thread,
+ * so any expensive preparation belongs in the constructor.
+ */
 @FunctionalInterface
-interface SampleResultFieldExtractor {
+public interface SampleResultFieldExtractor {
     public Optional<Object> getValueFrom(SampleResult r);
+
+    /**
+     * Name used to enable this extractor in <code>resultFields</code> and as the telemetry property name.
+     */
+    public default String getFieldName() {
+        return getClass().getSimpleName();
+    }
 }
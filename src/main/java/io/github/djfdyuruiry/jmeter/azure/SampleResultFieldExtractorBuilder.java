@@ -1,12 +1,22 @@
 package io.github.djfdyuruiry.jmeter.azure;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.regex.Pattern;
 
 import org.apache.jmeter.protocol.http.sampler.HTTPSampleResult;
 import org.apache.jmeter.samplers.SampleResult;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonPointer;
+import com.fasterxml.jackson.core.filter.FilteringParserDelegate;
+import com.fasterxml.jackson.core.filter.JsonPointerBasedFilter;
+
 class SampleResultFieldExtractorBuilder {
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
   private SampleResultFieldExtractorBuilder() {
   }
 
@@ -19,4 +29,68 @@ class SampleResultFieldExtractorBuilder {
         ? Optional.ofNullable(extractor.apply((HTTPSampleResult)sr))
         : Optional.empty();
   }
+
+  public static SampleResultFieldExtractor variableExtractor(String variableName, SampleVariablesCapture variables) {
+    variables.addVariable(variableName);
+
+    return r -> variables.get(r, variableName).map(Object.class::cast);
+  }
+
+  public static SampleResultFieldExtractor responseHeaderExtractor(String headerName) {
+    return r -> RawHeaders.find(r.getResponseHeaders(), headerName).map(Object.class::cast);
+  }
+
+  /**
+   * Matches against the response body, the value is the first group if the pattern has one.
+   */
+  public static SampleResultFieldExtractor regexExtractor(Pattern pattern) {
+    var group = pattern.matcher("").groupCount() > 0 ? 1 : 0;
+
+    return r -> {
+      var matcher = pattern.matcher(r.getResponseDataAsString());
+
+      return matcher.find()
+          ? Optional.ofNullable(matcher.group(group))
+          : Optional.empty();
+    };
+  }
+
+  /**
+   * Streams the response body up to the value at the given pointer, without building a document tree.
+   * Objects and arrays are returned as JSON text.
+   */
+  public static SampleResultFieldExtractor jsonPointerExtractor(JsonPointer pointer) {
+    var filter = new JsonPointerBasedFilter(pointer);
+
+    return r -> {
+      var body = r.getResponseData();
+
+      if (body.length == 0) {
+        return Optional.empty();
+      }
+
+      try (var parser = new FilteringParserDelegate(JSON_FACTORY.createParser(body), filter, false, false)) {
+        var token = parser.nextToken();
+
+        if (token == null) {
+          return Optional.empty();
+        }
+
+        if (token.isScalarValue()) {
+          return Optional.of(parser.getText());
+        }
+
+        var json = new StringWriter();
+
+        try (var generator = JSON_FACTORY.createGenerator(json)) {
+          generator.copyCurrentStructure(parser);
+        }
+
+        return Optional.of(json.toString());
+      } catch (IOException e) {
+        // not JSON, or truncated
+        return Optional.empty();
+      }
+    };
+  }
 }
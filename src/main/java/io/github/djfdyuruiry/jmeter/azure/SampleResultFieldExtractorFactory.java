@@ -1,7 +1,12 @@
 package io.github.djfdyuruiry.jmeter.azure;
 
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.regex.Pattern;
 
+import static java.lang.String.format;
 import static java.util.Map.entry;
 
 import org.apache.jmeter.protocol.http.sampler.HTTPSampleResult;
@@ -12,14 +17,28 @@ import static org.apache.commons.lang3.StringUtils.isBlank;
 import static io.github.djfdyuruiry.jmeter.azure.SampleResultField.*;
 import static io.github.djfdyuruiry.jmeter.azure.SampleResultFieldExtractorBuilder.extractor;
 import static io.github.djfdyuruiry.jmeter.azure.SampleResultFieldExtractorBuilder.httpExtractor;
+import static io.github.djfdyuruiry.jmeter.azure.SampleResultFieldExtractorBuilder.jsonPointerExtractor;
+import static io.github.djfdyuruiry.jmeter.azure.SampleResultFieldExtractorBuilder.regexExtractor;
+import static io.github.djfdyuruiry.jmeter.azure.SampleResultFieldExtractorBuilder.responseHeaderExtractor;
+import static io.github.djfdyuruiry.jmeter.azure.SampleResultFieldExtractorBuilder.variableExtractor;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
 
+import com.fasterxml.jackson.core.JsonPointer;
+
 class SampleResultFieldExtractorFactory {
   private static final String URL_PLACEHOLDER = "<URL MISSING>";
   private static final String METHOD_PLACEHOLDER = "<HTTP METHOD MISSING>";
 
+  private static final char SPEC_SEPARATOR = ':';
+  private static final String SPEC_VARIABLE = "var";
+  private static final String SPEC_HEADER = "header";
+  private static final String SPEC_REGEX = "regex";
+  private static final String SPEC_JSON = "json";
+
   private final Map<SampleResultField, SampleResultFieldExtractor> extractorRegistry;
 
+  private Map<String, SampleResultFieldExtractor> providedExtractors;
+
   public SampleResultFieldExtractorFactory() {
     extractorRegistry = Map.ofEntries(
         entry(REQUEST_URL, extractor(SampleResult::getURL)),
@@ -65,4 +84,48 @@ class SampleResultFieldExtractorFactory {
   public SampleResultFieldExtractor getExtractorForField(SampleResultField field) {
     return extractorRegistry.get(field);
   }
+
+  /**
+   * Finds an extractor registered through the {@link SampleResultFieldExtractor} service provider interface.
+   */
+  public Optional<SampleResultFieldExtractor> getProvidedExtractor(String fieldName) {
+    if (providedExtractors == null) {
+      providedExtractors = new HashMap<>();
+
+      ServiceLoader.load(SampleResultFieldExtractor.class, SampleResultFieldExtractor.class.getClassLoader())
+          .forEach(e -> providedExtractors.put(e.getFieldName().toLowerCase(), e));
+    }
+
+    return Optional.ofNullable(providedExtractors.get(fieldName.toLowerCase().trim()));
+  }
+
+  /**
+   * Compiles a declarative extractor spec, one of <code>var:name</code>, <code>header:Name</code>,
+   * <code>regex:pattern</code> or <code>json:/pointer</code>.
+   */
+  public SampleResultFieldExtractor compileExtractor(String spec, SampleVariablesCapture variables) {
+    var separatorIndex = spec.indexOf(SPEC_SEPARATOR);
+
+    if (separatorIndex < 1) {
+      throw new IllegalArgumentException(
+          format("Field extractor must be in the form <type>%s<argument>, got: %s", SPEC_SEPARATOR, spec)
+      );
+    }
+
+    var type = spec.substring(0, separatorIndex).trim().toLowerCase();
+    var argument = spec.substring(separatorIndex + 1);
+
+    switch (type) {
+      case SPEC_VARIABLE:
+        return variableExtractor(argument.trim(), variables);
+      case SPEC_HEADER:
+        return responseHeaderExtractor(argument.trim());
+      case SPEC_REGEX:
+        return regexExtractor(Pattern.compile(argument));
+      case SPEC_JSON:
+        return jsonPointerExtractor(JsonPointer.compile(argument.trim()));
+      default:
+        throw new IllegalArgumentException(format("Unrecognised field extractor type provided: %s", type));
+    }
+  }
 }
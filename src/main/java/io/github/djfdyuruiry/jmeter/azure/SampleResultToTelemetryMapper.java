@@ -1,10 +1,13 @@
 package io.github.djfdyuruiry.jmeter.azure;
 
 import java.net.URL;
+import java.util.Collection;
 import java.util.Date;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.apache.jmeter.protocol.http.sampler.HTTPSampleResult;
 import org.apache.jmeter.samplers.SampleResult;
 
 import com.microsoft.applicationinsights.telemetry.Duration;
@@ -14,12 +17,22 @@ import static io.github.djfdyuruiry.jmeter.azure.SampleResultField.HTTP_METHOD;
 import static io.github.djfdyuruiry.jmeter.azure.SampleResultField.REQUEST_URL;
 
 class SampleResultToTelemetryMapper {
-  private final Map<SampleResultField, SampleResultFieldExtractor> fieldExtractors;
+  // not "ConnectTime", which is already the name of a result field property
+  private static final String METRIC_CONNECTION_SETUP_TIME = "ConnectionSetupTime";
+  private static final String METRIC_SERVER_AND_NETWORK_TIME = "ServerAndNetworkTime";
+  private static final String METRIC_RESPONSE_DOWNLOAD_TIME = "ResponseDownloadTime";
+
+  private final Map<String, SampleResultFieldExtractor> customFieldExtractors;
   private final Map<String, String> customProperties;
   private final SampleResultFieldExtractorFactory extractorFactory;
 
+  // replaced wholesale rather than modified, so result fields can be changed while the test is running
+  private volatile Map<SampleResultField, SampleResultFieldExtractor> fieldExtractors;
+  private volatile boolean heavyFieldsDropped;
+
   SampleResultToTelemetryMapper() {
-    fieldExtractors = new HashMap<>();
+    fieldExtractors = new EnumMap<>(SampleResultField.class);
+    customFieldExtractors = new HashMap<>();
     customProperties = new HashMap<>();
     extractorFactory = new SampleResultFieldExtractorFactory();
   }
@@ -29,10 +42,32 @@ class SampleResultToTelemetryMapper {
   }
 
   public void enableResultField(SampleResultField field) {
-    fieldExtractors.put(
+    var newFieldExtractors = new EnumMap<>(fieldExtractors);
+
+    newFieldExtractors.put(
         field,
         extractorFactory.getExtractorForField(field)
     );
+
+    fieldExtractors = newFieldExtractors;
+  }
+
+  public void replaceResultFields(Collection<SampleResultField> fields) {
+    var newFieldExtractors = new EnumMap<SampleResultField, SampleResultFieldExtractor>(SampleResultField.class);
+
+    fields.forEach(f ->
+        newFieldExtractors.put(f, extractorFactory.getExtractorForField(f))
+    );
+
+    fieldExtractors = newFieldExtractors;
+  }
+
+  public void enableCustomField(String name, SampleResultFieldExtractor extractor) {
+    customFieldExtractors.put(name, extractor);
+  }
+
+  public void setHeavyFieldsDropped(boolean heavyFieldsDropped) {
+    this.heavyFieldsDropped = heavyFieldsDropped;
   }
 
   private void setTelemetryValueForResultField(SampleResultField field, Object value, RequestTelemetry telemetry) {
@@ -52,15 +87,28 @@ class SampleResultToTelemetryMapper {
   private void mapResultFields(SampleResult jmeterRequest, RequestTelemetry telemetry) {
     telemetry.setResponseCode(jmeterRequest.getResponseCode());
 
-    fieldExtractors.keySet()
-        .forEach(f -> {
-          var extractor = fieldExtractors.get(f);
+    var dropHeavyFields = heavyFieldsDropped;
 
+    fieldExtractors.forEach((f, extractor) -> {
+      if (dropHeavyFields && f.isHeavy()) {
+        return;
+      }
+
+      extractor.getValueFrom(jmeterRequest)
+          .ifPresent(v ->
+              setTelemetryValueForResultField(f, v, telemetry)
+          );
+    });
+
+    // custom fields parse response bodies or run provided code, so they count as heavy
+    if (!dropHeavyFields) {
+      customFieldExtractors.forEach((name, extractor) ->
           extractor.getValueFrom(jmeterRequest)
               .ifPresent(v ->
-                  setTelemetryValueForResultField(f, v, telemetry)
-              );
-        });
+                  telemetry.getProperties().put(name, v.toString())
+              )
+      );
+    }
 
     customProperties.keySet()
         .forEach(p ->
@@ -68,6 +116,30 @@ class SampleResultToTelemetryMapper {
         );
   }
 
+  private void mapTraceContext(SampleResult jmeterRequest, RequestTelemetry telemetry) {
+    if (!(jmeterRequest instanceof HTTPSampleResult)) {
+      return;
+    }
+
+    TraceContext.fromRequestHeaders(((HTTPSampleResult) jmeterRequest).getRequestHeaders())
+        .ifPresent(t -> {
+          var operation = telemetry.getContext().getOperation();
+
+          // the server's request telemetry references our span ID as its parent
+          telemetry.setId(t.getSpanId());
+          operation.setId(t.getTraceId());
+          operation.setParentId(t.getTraceId());
+
+          // server time comes from the joined server request, this splits out what happened client side
+          var connectTime = (double) jmeterRequest.getConnectTime();
+          var latency = (double) jmeterRequest.getLatency();
+
+          telemetry.getMetrics().put(METRIC_CONNECTION_SETUP_TIME, connectTime);
+          telemetry.getMetrics().put(METRIC_SERVER_AND_NETWORK_TIME, latency - connectTime);
+          telemetry.getMetrics().put(METRIC_RESPONSE_DOWNLOAD_TIME, jmeterRequest.getTime() - latency);
+        });
+  }
+
   public RequestTelemetry map(String requestName, SampleResult jmeterRequest) {
     var timestamp = new Date(jmeterRequest.getTimeStamp());
     var duration = new Duration(jmeterRequest.getTime());
@@ -84,6 +156,7 @@ class SampleResultToTelemetryMapper {
         .getOperation()
         .setName(requestName);
 
+    mapTraceContext(jmeterRequest, telemetry);
     mapResultFields(jmeterRequest, telemetry);
 
     return telemetry;
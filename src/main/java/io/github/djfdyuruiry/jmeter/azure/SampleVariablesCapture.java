@@ -0,0 +1,73 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.threads.JMeterContextService;
+
+/**
+ * JMeter variables belong to the sampler thread and are gone by the time results reach the listener
+ * thread, so values of the variables used by extractors are copied when the sample is queued.
+ */
+class SampleVariablesCapture {
+  private final Set<String> variableNames;
+
+  // sample results do not override equals/hashCode, so this is keyed by identity
+  private final Map<SampleResult, Map<String, String>> capturedVariables;
+
+  SampleVariablesCapture() {
+    variableNames = ConcurrentHashMap.newKeySet();
+    capturedVariables = new ConcurrentHashMap<>();
+  }
+
+  public void addVariable(String variableName) {
+    variableNames.add(variableName);
+  }
+
+  public boolean isEmpty() {
+    return variableNames.isEmpty();
+  }
+
+  /**
+   * Called on the sampler thread.
+   */
+  public void capture(SampleResult result) {
+    var variables = JMeterContextService.getContext().getVariables();
+
+    if (variables == null) {
+      return;
+    }
+
+    var values = new HashMap<String, String>(variableNames.size());
+
+    for (var name : variableNames) {
+      var value = variables.get(name);
+
+      if (value != null) {
+        values.put(name, value);
+      }
+    }
+
+    capturedVariables.put(result, values);
+  }
+
+  public Optional<String> get(SampleResult result, String variableName) {
+    var values = capturedVariables.get(result);
+
+    return values != null
+        ? Optional.ofNullable(values.get(variableName))
+        : Optional.empty();
+  }
+
+  public void release(SampleResult result) {
+    capturedVariables.remove(result);
+  }
+
+  public void clear() {
+    capturedVariables.clear();
+  }
+}
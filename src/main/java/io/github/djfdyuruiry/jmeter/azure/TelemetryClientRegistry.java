@@ -0,0 +1,228 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.TelemetryConfiguration;
+
+/**
+ * JVM wide, reference counted telemetry clients keyed by instrumentation key, ingestion endpoint and
+ * dry run mode, so that every listener in a test plan sending to the same resource shares one client,
+ * channel and live metrics session.
+ */
+class TelemetryClientRegistry {
+  public static final TelemetryClientRegistry INSTANCE = new TelemetryClientRegistry();
+
+  // the SDK skips items with no instrumentation key, so dry runs without one use a placeholder
+  private static final String DRY_RUN_INSTRUMENTATION_KEY = "00000000-0000-0000-0000-000000000000";
+
+  private static final Logger LOG = LoggerFactory.getLogger(TelemetryClientRegistry.class);
+
+  static class SharedTelemetryClient {
+    private final String key;
+    private final TelemetryConfiguration config;
+    private final TelemetryClient client;
+    private final CountingTelemetryChannel channel;
+    private final DryRunTelemetryChannel dryRunChannel;
+    private final LiveMetricsCounters liveMetricsCounters;
+
+    private int references;
+    private boolean liveMetricsInitialised;
+    private LiveMetricsCounterPublisher liveMetricsPublisher;
+
+    private SharedTelemetryClient(
+        String key,
+        TelemetryConfiguration config,
+        TelemetryClient client,
+        CountingTelemetryChannel channel,
+        DryRunTelemetryChannel dryRunChannel
+    ) {
+      this.key = key;
+      this.config = config;
+      this.client = client;
+      this.channel = channel;
+      this.dryRunChannel = dryRunChannel;
+
+      liveMetricsCounters = new LiveMetricsCounters();
+    }
+
+    public TelemetryClient getClient() {
+      return client;
+    }
+
+    /**
+     * Null if the SDK configuration did not provide a channel.
+     */
+    public CountingTelemetryChannel getChannel() {
+      return channel;
+    }
+
+    /**
+     * Null unless the client was acquired for a dry run.
+     */
+    public DryRunTelemetryChannel getDryRunChannel() {
+      return dryRunChannel;
+    }
+
+    public LiveMetricsCounters getLiveMetricsCounters() {
+      return liveMetricsCounters;
+    }
+
+    public synchronized int getReferences() {
+      return references;
+    }
+
+    /**
+     * True once live metrics for this client are published from {@link #getLiveMetricsCounters()},
+     * whichever mode the listener asking was configured with.
+     */
+    public synchronized boolean isLiveMetricsFedByCounters() {
+      return liveMetricsPublisher != null;
+    }
+
+    public synchronized void initialiseLiveMetricsOnce(Consumer<TelemetryConfiguration> quickPulseInitialiser) {
+      if (liveMetricsInitialised) {
+        if (liveMetricsPublisher != null) {
+          LOG.warn(
+              "Live metrics already fed from counters by another listener sharing this client, " +
+                  "this listener's samples will be counted there instead of being observed as telemetry"
+          );
+        } else {
+          LOG.info("Live metrics already initialised by another listener");
+        }
+
+        return;
+      }
+
+      quickPulseInitialiser.accept(config);
+      liveMetricsInitialised = true;
+    }
+
+    /**
+     * Starts a publisher fed by {@link #getLiveMetricsCounters()}, it is stopped when the last
+     * listener releases the client.
+     */
+    public synchronized void initialiseLiveMetricsCountersOnce(
+        BiFunction<String, LiveMetricsCounters, LiveMetricsCounterPublisher> publisherFactory
+    ) {
+      if (liveMetricsInitialised) {
+        if (liveMetricsPublisher == null) {
+          LOG.warn(
+              "Live metrics already fed from telemetry by another listener sharing this client, " +
+                  "only this listener's sent request items will appear in the live view"
+          );
+        } else {
+          LOG.info("Live metrics already initialised by another listener");
+        }
+
+        return;
+      }
+
+      liveMetricsPublisher = publisherFactory.apply(config.getInstrumentationKey(), liveMetricsCounters);
+      liveMetricsPublisher.start();
+      liveMetricsInitialised = true;
+    }
+  }
+
+  private final Map<String, SharedTelemetryClient> clients;
+
+  TelemetryClientRegistry() {
+    clients = new HashMap<>();
+  }
+
+  public synchronized SharedTelemetryClient acquire(
+      String instrumentationKey,
+      String ingestionEndpoint,
+      boolean dryRun,
+      Function<TelemetryConfiguration, TelemetryClient> telemetryClientFactory
+  ) {
+    var key = format("%s|%s|%s", instrumentationKey, ingestionEndpoint, dryRun);
+    var sharedClient = clients.computeIfAbsent(
+        key,
+        k -> createClient(k, instrumentationKey, ingestionEndpoint, dryRun, telemetryClientFactory)
+    );
+
+    sharedClient.references++;
+
+    LOG.info("Telemetry client acquired ({} listener(s) sharing it)", sharedClient.references);
+
+    return sharedClient;
+  }
+
+  /**
+   * Returns true when the last listener using the client has released it, and the caller is now
+   * responsible for closing its channel.
+   */
+  public synchronized boolean release(SharedTelemetryClient sharedClient) {
+    sharedClient.references--;
+
+    if (sharedClient.references > 0) {
+      LOG.info("Telemetry client released ({} listener(s) still sharing it)", sharedClient.references);
+
+      return false;
+    }
+
+    clients.remove(sharedClient.key);
+
+    if (sharedClient.liveMetricsPublisher != null) {
+      sharedClient.liveMetricsPublisher.stop();
+    }
+
+    LOG.info("Telemetry client released by last listener");
+
+    return true;
+  }
+
+  private static SharedTelemetryClient createClient(
+      String key,
+      String instrumentationKey,
+      String ingestionEndpoint,
+      boolean dryRun,
+      Function<TelemetryConfiguration, TelemetryClient> telemetryClientFactory
+  ) {
+    var effectiveInstrumentationKey = dryRun && isBlank(instrumentationKey)
+        ? DRY_RUN_INSTRUMENTATION_KEY
+        : instrumentationKey;
+
+    var config = TelemetryConfiguration.createDefault();
+    config.setInstrumentationKey(effectiveInstrumentationKey);
+
+    if (!isBlank(ingestionEndpoint)) {
+      config.setConnectionString(
+          format("InstrumentationKey=%s;IngestionEndpoint=%s", effectiveInstrumentationKey, ingestionEndpoint)
+      );
+    }
+
+    DryRunTelemetryChannel dryRunChannel = null;
+
+    if (dryRun) {
+      if (config.getChannel() != null) {
+        config.getChannel().stop(0, TimeUnit.MILLISECONDS);
+      }
+
+      dryRunChannel = new DryRunTelemetryChannel();
+      config.setChannel(dryRunChannel);
+    }
+
+    CountingTelemetryChannel channel = null;
+
+    if (config.getChannel() != null) {
+      channel = new CountingTelemetryChannel(config.getChannel());
+      config.setChannel(channel);
+    }
+
+    return new SharedTelemetryClient(key, config, telemetryClientFactory.apply(config), channel, dryRunChannel);
+  }
+}
@@ -0,0 +1,118 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.LongSupplier;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
+
+/**
+ * Counts samples as they pass through the listener and turns them into per second rates, along with
+ * the active thread count overall and per thread group, each time {@link #report()} is called by the
+ * listener's scheduler.
+ */
+class ThroughputMetricsSampler {
+  private static final String METRIC_ACTIVE_THREADS = "ActiveThreads";
+  private static final String METRIC_GROUP_ACTIVE_THREADS = "GroupActiveThreads";
+  private static final String METRIC_REQUESTS_PER_SECOND = "RequestsPerSecond";
+  private static final String METRIC_BYTES_PER_SECOND = "BytesPerSecond";
+  private static final String METRIC_ERRORS_PER_SECOND = "ErrorsPerSecond";
+  private static final String PROPERTY_TEST_NAME = "TestName";
+  private static final String PROPERTY_THREAD_GROUP = "ThreadGroup";
+
+  private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+  private final String testName;
+  private final IntSupplier activeThreadsSupplier;
+  private final LongSupplier nanoClock;
+  private final Consumer<MetricTelemetry> metricConsumer;
+
+  private final LongAdder requests;
+  private final LongAdder bytes;
+  private final LongAdder errors;
+  private final Map<String, IntSupplier> threadGroups;
+
+  private long lastReportNanos;
+
+  public ThroughputMetricsSampler(
+      String testName,
+      IntSupplier activeThreadsSupplier,
+      Consumer<MetricTelemetry> metricConsumer
+  ) {
+    this(testName, activeThreadsSupplier, System::nanoTime, metricConsumer);
+  }
+
+  ThroughputMetricsSampler(
+      String testName,
+      IntSupplier activeThreadsSupplier,
+      LongSupplier nanoClock,
+      Consumer<MetricTelemetry> metricConsumer
+  ) {
+    this.testName = testName;
+    this.activeThreadsSupplier = activeThreadsSupplier;
+    this.nanoClock = nanoClock;
+    this.metricConsumer = metricConsumer;
+
+    requests = new LongAdder();
+    bytes = new LongAdder();
+    errors = new LongAdder();
+    threadGroups = new ConcurrentHashMap<>();
+
+    lastReportNanos = nanoClock.getAsLong();
+  }
+
+  public void record(SampleResult result) {
+    requests.add(result.getSampleCount());
+    bytes.add(result.getBytesAsLong());
+    errors.add(result.getErrorCount());
+  }
+
+  /**
+   * Called on sampler threads, registers the thread group the first time one of its samples is seen.
+   */
+  public void recordThreadGroup(String threadGroupName, IntSupplier activeThreadsSupplier) {
+    if (!threadGroups.containsKey(threadGroupName)) {
+      threadGroups.putIfAbsent(threadGroupName, activeThreadsSupplier);
+    }
+  }
+
+  public void report() {
+    var nowNanos = nanoClock.getAsLong();
+    var elapsedSeconds = (nowNanos - lastReportNanos) / NANOS_PER_SECOND;
+
+    lastReportNanos = nowNanos;
+
+    if (elapsedSeconds <= 0) {
+      return;
+    }
+
+    send(METRIC_ACTIVE_THREADS, activeThreadsSupplier.getAsInt());
+    threadGroups.forEach((name, groupThreads) -> {
+      var metric = buildMetric(METRIC_GROUP_ACTIVE_THREADS, groupThreads.getAsInt());
+
+      metric.getProperties().put(PROPERTY_THREAD_GROUP, name);
+
+      metricConsumer.accept(metric);
+    });
+    send(METRIC_REQUESTS_PER_SECOND, requests.sumThenReset() / elapsedSeconds);
+    send(METRIC_BYTES_PER_SECOND, bytes.sumThenReset() / elapsedSeconds);
+    send(METRIC_ERRORS_PER_SECOND, errors.sumThenReset() / elapsedSeconds);
+  }
+
+  private void send(String name, double value) {
+    metricConsumer.accept(buildMetric(name, value));
+  }
+
+  private MetricTelemetry buildMetric(String name, double value) {
+    var metric = new MetricTelemetry(name, value);
+
+    metric.getProperties().put(PROPERTY_TEST_NAME, testName);
+
+    return metric;
+  }
+}
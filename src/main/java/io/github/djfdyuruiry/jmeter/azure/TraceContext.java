@@ -0,0 +1,99 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.lang.String.format;
+
+/**
+ * W3C trace context (https://www.w3.org/TR/trace-context/) carried by the <code>traceparent</code> header.
+ */
+class TraceContext {
+  public static final String TRACEPARENT_HEADER = "traceparent";
+
+  private static final String VERSION = "00";
+  private static final String FLAG_SAMPLED = "01";
+  private static final String FLAG_NOT_SAMPLED = "00";
+  private static final int TRACEPARENT_LENGTH = 55;
+  private static final int TRACE_ID_START = 3;
+  private static final int SPAN_ID_START = 36;
+  private static final int FLAGS_START = 53;
+
+  private final String traceId;
+  private final String spanId;
+  private final boolean sampled;
+
+  TraceContext(String traceId, String spanId, boolean sampled) {
+    this.traceId = traceId;
+    this.spanId = spanId;
+    this.sampled = sampled;
+  }
+
+  public static TraceContext generate(boolean sampled) {
+    var random = ThreadLocalRandom.current();
+    long traceIdHigh;
+    long traceIdLow;
+    long spanId;
+
+    // all zero IDs are invalid
+    do {
+      traceIdHigh = random.nextLong();
+      traceIdLow = random.nextLong();
+    } while (traceIdHigh == 0 && traceIdLow == 0);
+
+    do {
+      spanId = random.nextLong();
+    } while (spanId == 0);
+
+    return new TraceContext(
+        format("%016x%016x", traceIdHigh, traceIdLow),
+        format("%016x", spanId),
+        sampled
+    );
+  }
+
+  public static Optional<TraceContext> parse(String traceparent) {
+    if (
+        traceparent == null ||
+        traceparent.length() != TRACEPARENT_LENGTH ||
+        !traceparent.startsWith(VERSION) ||
+        traceparent.charAt(TRACE_ID_START - 1) != '-' ||
+        traceparent.charAt(SPAN_ID_START - 1) != '-' ||
+        traceparent.charAt(FLAGS_START - 1) != '-'
+    ) {
+      return Optional.empty();
+    }
+
+    return Optional.of(
+        new TraceContext(
+            traceparent.substring(TRACE_ID_START, SPAN_ID_START - 1),
+            traceparent.substring(SPAN_ID_START, FLAGS_START - 1),
+            traceparent.endsWith(FLAG_SAMPLED)
+        )
+    );
+  }
+
+  /**
+   * Finds the <code>traceparent</code> header in the raw request headers recorded on a HTTP sample.
+   */
+  public static Optional<TraceContext> fromRequestHeaders(String requestHeaders) {
+    return RawHeaders.find(requestHeaders, TRACEPARENT_HEADER)
+        .flatMap(TraceContext::parse);
+  }
+
+  public String getTraceId() {
+    return traceId;
+  }
+
+  public String getSpanId() {
+    return spanId;
+  }
+
+  public boolean isSampled() {
+    return sampled;
+  }
+
+  public String toTraceparent() {
+    return format("%s-%s-%s-%s", VERSION, traceId, spanId, sampled ? FLAG_SAMPLED : FLAG_NOT_SAMPLED);
+  }
+}
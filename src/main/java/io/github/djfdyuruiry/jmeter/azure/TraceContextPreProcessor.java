@@ -0,0 +1,51 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import org.apache.jmeter.processor.PreProcessor;
+import org.apache.jmeter.protocol.http.control.Header;
+import org.apache.jmeter.protocol.http.control.HeaderManager;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerBase;
+import org.apache.jmeter.testbeans.TestBean;
+import org.apache.jmeter.testelement.AbstractTestElement;
+
+import static io.github.djfdyuruiry.jmeter.azure.TraceContext.TRACEPARENT_HEADER;
+
+/**
+ * Adds a fresh W3C <code>traceparent</code> header to every HTTP sample in scope, so that server side
+ * App Insights telemetry joins the request sent by {@link AppInsightsListener} in end-to-end transaction views.
+ */
+public class TraceContextPreProcessor extends AbstractTestElement implements PreProcessor, TestBean {
+  private static final long serialVersionUID = 1L;
+
+  private boolean sampled = true;
+
+  @Override
+  public void process() {
+    var sampler = getThreadContext().getCurrentSampler();
+
+    if (!(sampler instanceof HTTPSamplerBase)) {
+      return;
+    }
+
+    var httpSampler = (HTTPSamplerBase) sampler;
+    var headerManager = httpSampler.getHeaderManager();
+
+    if (headerManager == null) {
+      headerManager = new HeaderManager();
+      httpSampler.setHeaderManager(headerManager);
+    }
+
+    // header managers live for the whole thread, so drop the previous sample's header first
+    headerManager.removeHeaderNamed(TRACEPARENT_HEADER);
+    headerManager.add(
+        new Header(TRACEPARENT_HEADER, TraceContext.generate(sampled).toTraceparent())
+    );
+  }
+
+  public boolean isSampled() {
+    return sampled;
+  }
+
+  public void setSampled(boolean sampled) {
+    this.sampled = sampled;
+  }
+}
@@ -0,0 +1,17 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import org.apache.jmeter.testbeans.BeanInfoSupport;
+
+public class TraceContextPreProcessorBeanInfo extends BeanInfoSupport {
+  private static final String PROPERTY_SAMPLED = "sampled";
+
+  public TraceContextPreProcessorBeanInfo() {
+    super(TraceContextPreProcessor.class);
+
+    createPropertyGroup("traceContext", new String[] { PROPERTY_SAMPLED });
+
+    var sampledProperty = property(PROPERTY_SAMPLED);
+    sampledProperty.setValue(NOT_UNDEFINED, Boolean.TRUE);
+    sampledProperty.setValue(DEFAULT, Boolean.TRUE);
+  }
+}
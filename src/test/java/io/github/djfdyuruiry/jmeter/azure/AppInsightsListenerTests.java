@@ -1,5 +1,6 @@
 package io.github.djfdyuruiry.jmeter.azure;
 
+import java.util.ArrayList;
 import java.util.UUID;
 
 import static java.time.LocalTime.now;
@@ -10,6 +11,7 @@ import org.apache.jmeter.samplers.SampleResult;
 import org.apache.jmeter.visualizers.backend.BackendListenerContext;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -19,6 +21,7 @@ import static io.github.djfdyuruiry.jmeter.azure.SampleResultField.*;
 
 import com.microsoft.applicationinsights.TelemetryClient;
 import com.microsoft.applicationinsights.TelemetryConfiguration;
+import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
 import com.microsoft.applicationinsights.telemetry.RequestTelemetry;
 
 public class AppInsightsListenerTests {
@@ -95,6 +98,28 @@ public class AppInsightsListenerTests {
     assertEquals(INSTRUMENTATION_KEY, configPassedToQuickPulseInitialiser.getInstrumentationKey());
   }
 
+  @Test
+  public void when_setupTest_isCalled_and_live_metrics_use_counters_then_quick_pulse_is_not_initialised() throws Exception {
+    jmeterArguments.addArgument("liveMetrics", "true");
+    jmeterArguments.addArgument("liveMetricsMode", "counters");
+    jmeterArguments.addArgument("liveMetricsEndpoint", "http://localhost:1/QuickPulseService.svc");
+
+    var context = buildContext();
+
+    listener.setupTest(context);
+    listener.teardownTest(context);
+
+    assertFalse(quickPulseInitialiserCalled);
+  }
+
+  @Test
+  public void when_setupTest_isCalled_and_live_metrics_mode_is_invalid_then_exception_is_thrown_before_client_is_created() {
+    jmeterArguments.addArgument("liveMetricsMode", "carrier-pigeon");
+
+    assertThrows(IllegalArgumentException.class, () -> listener.setupTest(buildContext()));
+    assertNull(configPassedToTelemetryFactory);
+  }
+
   @Test
   public void when_setupTest_isCalled_and_custom_properties_are_defined_then_properties_are_passed_to_result_mapper() {
     jmeterArguments.addArgument("ai.test-metric", "reeeee");
@@ -106,6 +131,24 @@ public class AppInsightsListenerTests {
     verify(resultMapper, times(1)).addCustomProperty(eq("location"), eq("the moon"));
   }
 
+  @Test
+  public void when_setupTest_isCalled_and_custom_property_name_contains_prefix_then_only_leading_prefix_is_removed() {
+    jmeterArguments.addArgument("ai.region.ai.zone", "eu-west");
+
+    listener.setupTest(buildContext());
+
+    verify(resultMapper, times(1)).addCustomProperty(eq("region.ai.zone"), eq("eu-west"));
+  }
+
+  @Test
+  public void when_setupTest_isCalled_and_custom_field_name_contains_prefix_then_only_leading_prefix_is_removed() {
+    jmeterArguments.addArgument("field.Orderfield.Id", "json:/order/id");
+
+    listener.setupTest(buildContext());
+
+    verify(resultMapper, times(1)).enableCustomField(eq("Orderfield.Id"), any(SampleResultFieldExtractor.class));
+  }
+
   @Test
   public void when_setupTest_isCalled_then_mapper_fields_specified_in_jmeter_args_are_enabled() {
     listener.setupTest(buildContext());
@@ -115,6 +158,32 @@ public class AppInsightsListenerTests {
     verify(resultMapper, times(1)).enableResultField(eq(HTTP_METHOD));
   }
 
+  @Test
+  public void when_setupTest_isCalled_and_time_series_metrics_are_enabled_then_thread_fields_are_not_enabled() {
+    jmeterArguments.removeArgument("resultFields");
+    jmeterArguments.addArgument("resultFields", "GroupThreads;AllThreads;SampleCount;Latency");
+
+    listener.setupTest(buildContext());
+
+    verify(resultMapper, never()).enableResultField(eq(GROUP_THREADS));
+    verify(resultMapper, never()).enableResultField(eq(ALL_THREADS));
+    verify(resultMapper, never()).enableResultField(eq(SAMPLE_COUNT));
+    verify(resultMapper, times(1)).enableResultField(eq(LATENCY));
+  }
+
+  @Test
+  public void when_setupTest_isCalled_and_time_series_metrics_are_disabled_then_thread_fields_are_enabled() {
+    jmeterArguments.removeArgument("resultFields");
+    jmeterArguments.addArgument("resultFields", "GroupThreads;AllThreads;SampleCount");
+    jmeterArguments.addArgument("timeSeriesMetrics", "false");
+
+    listener.setupTest(buildContext());
+
+    verify(resultMapper, times(1)).enableResultField(eq(GROUP_THREADS));
+    verify(resultMapper, times(1)).enableResultField(eq(ALL_THREADS));
+    verify(resultMapper, times(1)).enableResultField(eq(SAMPLE_COUNT));
+  }
+
   @Test
   public void when_handleSampleResults_isCalled_then_result_mapper_isCalled() {
     var context = buildContext();
@@ -180,6 +249,97 @@ public class AppInsightsListenerTests {
     verify(telemetryClient, never()).trackRequest(any(RequestTelemetry.class));
   }
 
+  @Test
+  public void when_handleSampleResults_isCalled_and_sampling_percentage_is_set_then_each_label_is_sampled_evenly() {
+    jmeterArguments.addArgument("samplingPercentage", "50");
+
+    var context = buildContext();
+    var results = new ArrayList<SampleResult>();
+
+    // one thread looping through a fixed flow
+    for (var i = 0; i < 2000; i++) {
+      results.add(buildSampleResult("login"));
+      results.add(buildSampleResult("checkout"));
+    }
+
+    listener.setupTest(context);
+    listener.handleSampleResults(results, context);
+
+    var mappedResults = ArgumentCaptor.forClass(SampleResult.class);
+
+    verify(resultMapper, atLeastOnce()).map(anyString(), mappedResults.capture());
+
+    var mappedLogins = mappedResults.getAllValues().stream()
+        .filter(r -> r.getSampleLabel().equals("login"))
+        .count();
+    var mappedCheckouts = mappedResults.getAllValues().size() - mappedLogins;
+
+    assertTrue(mappedLogins > 800 && mappedLogins < 1200, "logins kept: " + mappedLogins);
+    assertTrue(mappedCheckouts > 800 && mappedCheckouts < 1200, "checkouts kept: " + mappedCheckouts);
+  }
+
+  @Test
+  public void when_handleSampleResult_isCalled_at_aggregate_only_and_sampling_percentage_is_set_then_every_result_is_aggregated() throws Exception {
+    jmeterArguments.addArgument("samplingPercentage", "25");
+
+    var context = buildContext();
+
+    listener.setupTest(context);
+
+    for (var i = 0; i < 400; i++) {
+      listener.handleSampleResult(buildSampleResult("login"), LoadSheddingLevel.AGGREGATE_ONLY);
+    }
+
+    listener.teardownTest(context);
+
+    var metrics = ArgumentCaptor.forClass(MetricTelemetry.class);
+
+    verify(telemetryClient, atLeastOnce()).trackMetric(metrics.capture());
+
+    var duration = metrics.getAllValues().stream()
+        .filter(m -> m.getName().equals("RequestDuration"))
+        .findFirst()
+        .orElseThrow();
+
+    assertEquals(Integer.valueOf(400), duration.getCount());
+    verify(resultMapper, never()).map(anyString(), any(SampleResult.class));
+  }
+
+  @Test
+  public void when_setupTest_isCalled_and_sampling_percentage_is_invalid_then_exception_is_thrown() {
+    jmeterArguments.addArgument("samplingPercentage", "0");
+
+    assertThrows(IllegalArgumentException.class, () -> listener.setupTest(buildContext()));
+  }
+
+  @Test
+  public void when_teardownTest_isCalled_then_telemetry_client_is_flushed() throws Exception {
+    var context = buildContext();
+
+    listener.setupTest(context);
+    listener.teardownTest(context);
+
+    verify(telemetryClient, times(1)).flush();
+  }
+
+  @Test
+  public void when_teardownTest_isCalled_after_setupTest_failed_then_no_exception_is_thrown() {
+    jmeterArguments.addArgument("samplingPercentage", "0");
+
+    var context = buildContext();
+
+    assertThrows(IllegalArgumentException.class, () -> listener.setupTest(context));
+    assertDoesNotThrow(() -> listener.teardownTest(context));
+  }
+
+  private static SampleResult buildSampleResult(String sampleLabel) {
+    var result = new SampleResult();
+
+    result.setSampleLabel(sampleLabel);
+
+    return result;
+  }
+
   private BackendListenerContext buildContext() {
     return new BackendListenerContext(jmeterArguments);
   }
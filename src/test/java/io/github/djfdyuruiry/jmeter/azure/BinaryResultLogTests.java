@@ -0,0 +1,139 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryResultLogTests {
+  private static final long START_TIME = 1614556800000L;
+
+  @TempDir
+  public Path tempDir;
+
+  private Path resultLogPath;
+
+  @BeforeEach
+  public void setup() {
+    resultLogPath = tempDir.resolve("results.jrl");
+  }
+
+  @Test
+  public void when_samples_are_written_then_reader_returns_same_values() throws IOException {
+    try (var writer = new BinaryResultLogWriter(resultLogPath, Long.MAX_VALUE)) {
+      writer.write(buildSampleResult(START_TIME, "GET homepage", "200", true));
+      writer.write(buildSampleResult(START_TIME - 5, "POST login", "500", false));
+    }
+
+    var samples = readAll();
+
+    assertEquals(2, samples.size());
+
+    assertEquals(START_TIME, samples.get(0).getStartTime());
+    assertEquals("GET homepage", samples.get(0).getLabel());
+    assertEquals("200", samples.get(0).getResponseCode());
+    assertTrue(samples.get(0).isSuccess());
+
+    assertEquals(START_TIME - 5, samples.get(1).getStartTime());
+    assertEquals("POST login", samples.get(1).getLabel());
+    assertEquals("500", samples.get(1).getResponseCode());
+    assertFalse(samples.get(1).isSuccess());
+    assertEquals(40, samples.get(1).getElapsed());
+    assertEquals(10, samples.get(1).getLatency());
+    assertEquals(1234, samples.get(1).getBytes());
+    assertEquals("Thread Group 1-1", samples.get(1).getThreadName());
+  }
+
+  @Test
+  public void when_rotation_size_is_reached_then_new_files_are_written_and_read_in_order() throws IOException {
+    try (var writer = new BinaryResultLogWriter(resultLogPath, 1)) {
+      for (var i = 0; i < 30000; i++) {
+        writer.write(buildSampleResult(START_TIME + i, "GET homepage", "200", true));
+      }
+    }
+
+    var samples = readAll();
+
+    assertTrue(Files.exists(BinaryResultLog.filePath(resultLogPath, 1)));
+    assertEquals(30000, samples.size());
+    assertEquals(START_TIME + 29999, samples.get(29999).getStartTime());
+  }
+
+  @Test
+  public void when_flush_isCalled_then_samples_can_be_read_before_close() throws IOException {
+    try (var writer = new BinaryResultLogWriter(resultLogPath, Long.MAX_VALUE)) {
+      writer.write(buildSampleResult(START_TIME, "GET homepage", "200", true));
+      writer.flush();
+
+      assertEquals(1, readAll().size());
+    }
+  }
+
+  @Test
+  public void when_last_record_is_cut_off_then_reader_stops_at_last_complete_record() throws IOException {
+    try (var writer = new BinaryResultLogWriter(resultLogPath, Long.MAX_VALUE)) {
+      writer.write(buildSampleResult(START_TIME, "GET homepage", "200", true));
+      writer.write(buildSampleResult(START_TIME + 5, "GET homepage", "200", true));
+    }
+
+    var logFile = BinaryResultLog.filePath(resultLogPath, 0);
+
+    try (var channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 3);
+    }
+
+    var samples = readAll();
+
+    assertEquals(1, samples.size());
+    assertEquals(START_TIME, samples.get(0).getStartTime());
+  }
+
+  @Test
+  public void when_exportToCsv_isCalled_then_labels_with_commas_are_quoted() throws IOException {
+    try (var writer = new BinaryResultLogWriter(resultLogPath, Long.MAX_VALUE)) {
+      writer.write(buildSampleResult(START_TIME, "GET search, page 2", "200", true));
+    }
+
+    var csv = new StringWriter();
+
+    BinaryResultLogReader.exportToCsv(resultLogPath, csv);
+
+    var lines = csv.toString().split("\n");
+
+    assertEquals(2, lines.length);
+    assertTrue(lines[1].contains(",\"GET search, page 2\",200,"));
+  }
+
+  private List<BinaryResultLogReader.LoggedSample> readAll() throws IOException {
+    var samples = new ArrayList<BinaryResultLogReader.LoggedSample>();
+
+    BinaryResultLogReader.readAll(resultLogPath, samples::add);
+
+    return samples;
+  }
+
+  private static SampleResult buildSampleResult(long startTime, String label, String responseCode, boolean success) {
+    var result = new SampleResult();
+
+    result.setStampAndTime(startTime, 40);
+    result.setSampleLabel(label);
+    result.setResponseCode(responseCode);
+    result.setSuccessful(success);
+    result.setThreadName("Thread Group 1-1");
+    result.setLatency(10);
+    result.setBytes(1234L);
+
+    return result;
+  }
+}
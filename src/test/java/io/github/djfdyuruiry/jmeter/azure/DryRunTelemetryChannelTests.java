@@ -0,0 +1,72 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.microsoft.applicationinsights.telemetry.Duration;
+import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
+import com.microsoft.applicationinsights.telemetry.RequestTelemetry;
+
+public class DryRunTelemetryChannelTests {
+  private long nowNanos;
+
+  private DryRunTelemetryChannel channel;
+
+  @BeforeEach
+  public void setup() {
+    nowNanos = 0;
+
+    channel = new DryRunTelemetryChannel(() -> nowNanos);
+  }
+
+  @Test
+  public void when_send_isCalled_then_serialized_bytes_are_counted() {
+    channel.send(buildRequest("Farbot"));
+    channel.send(new MetricTelemetry("RequestsPerSecond", 12));
+
+    assertEquals(2, channel.getItems());
+    assertTrue(channel.getBytes() > channel.getBytesPerRequest());
+    assertTrue(channel.getBytesPerRequest() > 0);
+  }
+
+  @Test
+  public void when_send_isCalled_with_request_then_bytes_are_counted_per_field() {
+    channel.send(buildRequest("Farbot"));
+    channel.send(buildRequest("Malorn"));
+
+    // "SampleLabel":"Farbot",
+    assertEquals(23, channel.getFieldBytesPerRequest("SampleLabel"));
+    assertEquals(0, channel.getFieldBytesPerRequest("HttpUrl"));
+  }
+
+  @Test
+  public void when_time_has_passed_then_projected_volume_is_based_on_observed_rate() {
+    channel.send(buildRequest("Farbot"));
+
+    var bytes = channel.getBytes();
+
+    nowNanos = 3_600_000_000_000L;
+
+    assertEquals(bytes / 1_000_000_000.0, channel.getProjectedGbPerHour(), 1e-12);
+  }
+
+  @Test
+  public void when_mapping_cost_is_recorded_then_average_is_reported_in_micros() {
+    channel.recordMappingCost(2000);
+    channel.recordMappingCost(4000);
+
+    assertEquals(3.0, channel.getMappingMicrosPerSample());
+  }
+
+  private static RequestTelemetry buildRequest(String sampleLabel) {
+    var request = new RequestTelemetry(sampleLabel, new Date(), new Duration(120), "200", true);
+
+    request.getProperties().put("SampleLabel", sampleLabel);
+
+    return request;
+  }
+}
@@ -0,0 +1,104 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.microsoft.applicationinsights.telemetry.RequestTelemetry;
+
+public class FailurePayloadCaptureTests {
+  private long nowMs;
+
+  private FailurePayloadCapture capture;
+
+  @BeforeEach
+  public void setup() {
+    nowMs = 0;
+    capture = new FailurePayloadCapture(10, 40, 60000, () -> nowMs);
+  }
+
+  @Test
+  public void when_capture_isCalled_with_successful_result_then_no_payload_is_attached() {
+    var telemetry = capture("200", "OK", "all good", 0);
+
+    assertTrue(telemetry.getProperties().isEmpty());
+  }
+
+  @Test
+  public void when_capture_isCalled_with_failed_result_then_truncated_payload_is_attached() {
+    var telemetry = capture("500", "Internal Server Error", "something went badly wrong", 1);
+
+    assertEquals("Internal S", telemetry.getProperties().get("FailureResponseMessage"));
+    assertEquals("something ", telemetry.getProperties().get("FailureResponseBody"));
+    assertNotNull(telemetry.getProperties().get("FailurePayloadHash"));
+  }
+
+  @Test
+  public void when_capture_isCalled_with_multi_byte_payload_then_it_is_truncated_on_character_boundary() {
+    var telemetry = capture("500", "a\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9", "\u20ac\u20ac\u20ac\u20ac\u20ac\u20ac", 1);
+
+    assertEquals("a\u00e9\u00e9\u00e9\u00e9", telemetry.getProperties().get("FailureResponseMessage"));
+    assertEquals("\u20ac\u20ac\u20ac", telemetry.getProperties().get("FailureResponseBody"));
+  }
+
+  @Test
+  public void when_capture_isCalled_with_multi_byte_payload_then_budget_is_charged_in_utf8_bytes() {
+    capture("500", "\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9\u00e9", "body 1", 1);
+    capture("500", "\u00e9\u00e9\u00e9\u00e9\u00e9", "body 2", 1);
+
+    var telemetry = capture("500", "Error 3", "body 3", 1);
+
+    assertEquals("true", telemetry.getProperties().get("FailurePayloadDropped"));
+  }
+
+  @Test
+  public void when_capture_isCalled_with_repeated_failure_then_only_hash_is_attached() {
+    var first = capture("500", "Error", "stack trace", 1);
+    var second = capture("500", "Error", "stack trace", 1);
+
+    assertEquals(first.getProperties().get("FailurePayloadHash"), second.getProperties().get("FailurePayloadHash"));
+    assertFalse(second.getProperties().containsKey("FailureResponseBody"));
+  }
+
+  @Test
+  public void when_capture_isCalled_and_budget_is_used_up_then_payload_is_dropped() {
+    capture("500", "Error 1", "body 1", 1);
+    capture("500", "Error 2", "body 2", 1);
+    capture("500", "Error 3", "body 3", 1);
+
+    var telemetry = capture("500", "Error 4", "body 4", 1);
+
+    assertEquals("true", telemetry.getProperties().get("FailurePayloadDropped"));
+    assertFalse(telemetry.getProperties().containsKey("FailureResponseBody"));
+  }
+
+  @Test
+  public void when_capture_isCalled_and_budget_interval_has_passed_then_payload_is_attached() {
+    capture("500", "Error 1", "body 1", 1);
+    capture("500", "Error 2", "body 2", 1);
+    capture("500", "Error 3", "body 3", 1);
+
+    nowMs = 60000;
+
+    var telemetry = capture("500", "Error 4", "body 4", 1);
+
+    assertEquals("body 4", telemetry.getProperties().get("FailureResponseBody"));
+  }
+
+  private RequestTelemetry capture(String responseCode, String message, String body, int errorCount) {
+    var result = new SampleResult();
+
+    result.setResponseCode(responseCode);
+    result.setResponseMessage(message);
+    result.setResponseData(body, "UTF-8");
+    result.setErrorCount(errorCount);
+
+    var telemetry = new RequestTelemetry();
+
+    capture.capture(result, telemetry);
+
+    return telemetry;
+  }
+}
@@ -0,0 +1,97 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import static io.github.djfdyuruiry.jmeter.azure.LoadSheddingLevel.*;
+
+public class HeapPressureMonitorTests {
+  private static final double[] HEAP_THRESHOLDS = { 0.75, 0.85, 0.92 };
+  private static final double[] GC_THRESHOLDS = { 0.05, 0.10, 0.20 };
+
+  private List<LoadSheddingLevel> transitions;
+
+  private HeapPressureMonitor monitor;
+
+  @BeforeEach
+  public void setup() {
+    transitions = new ArrayList<>();
+
+    monitor = new HeapPressureMonitor(
+        HEAP_THRESHOLDS,
+        GC_THRESHOLDS,
+        (from, to) -> transitions.add(to),
+        () -> 0L
+    );
+  }
+
+  @Test
+  public void when_evaluate_isCalled_and_pressure_is_low_then_level_is_none() {
+    assertEquals(NONE, monitor.evaluate(0.5, 0.01, 1000));
+    assertTrue(transitions.isEmpty());
+  }
+
+  @Test
+  public void when_evaluate_isCalled_and_heap_usage_exceeds_first_threshold_then_heavy_fields_are_dropped() {
+    assertEquals(DROP_HEAVY_FIELDS, monitor.evaluate(0.8, 0.01, 1000));
+  }
+
+  @Test
+  public void when_evaluate_isCalled_and_gc_overhead_exceeds_first_threshold_then_heavy_fields_are_dropped() {
+    assertEquals(DROP_HEAVY_FIELDS, monitor.evaluate(0.5, 0.06, 1000));
+  }
+
+  @Test
+  public void when_evaluate_isCalled_and_pressure_is_severe_then_level_steps_up_one_at_a_time() {
+    monitor.evaluate(0.95, 0.01, 1000);
+    monitor.evaluate(0.95, 0.01, 2000);
+    monitor.evaluate(0.95, 0.01, 3000);
+    monitor.evaluate(0.95, 0.01, 4000);
+
+    assertEquals(List.of(DROP_HEAVY_FIELDS, INCREASED_SAMPLING, AGGREGATE_ONLY), transitions);
+  }
+
+  @Test
+  public void when_evaluate_isCalled_and_pressure_eases_then_level_steps_down_after_delay() {
+    monitor.evaluate(0.8, 0.01, 1000);
+
+    assertEquals(DROP_HEAVY_FIELDS, monitor.evaluate(0.5, 0.01, 2000));
+    assertEquals(NONE, monitor.evaluate(0.5, 0.01, 31000));
+  }
+
+  @Test
+  public void when_evaluate_isCalled_and_gc_overhead_eases_then_level_steps_down_after_delay() {
+    monitor.evaluate(0.5, 0.06, 1000);
+
+    assertEquals(DROP_HEAVY_FIELDS, monitor.evaluate(0.5, 0.046, 40000));
+    assertEquals(NONE, monitor.evaluate(0.5, 0.0, 70000));
+  }
+
+  @Test
+  public void when_evaluate_isCalled_and_pressure_eases_from_severe_then_level_steps_down_one_at_a_time() {
+    monitor.evaluate(0.5, 0.25, 1000);
+    monitor.evaluate(0.5, 0.25, 2000);
+    monitor.evaluate(0.5, 0.25, 3000);
+
+    monitor.evaluate(0.5, 0.0, 33000);
+    monitor.evaluate(0.5, 0.0, 63000);
+    monitor.evaluate(0.5, 0.0, 93000);
+
+    assertEquals(
+        List.of(DROP_HEAVY_FIELDS, INCREASED_SAMPLING, AGGREGATE_ONLY, INCREASED_SAMPLING, DROP_HEAVY_FIELDS, NONE),
+        transitions
+    );
+  }
+
+  @Test
+  public void when_evaluate_isCalled_and_pressure_is_just_below_threshold_then_level_does_not_step_down() {
+    monitor.evaluate(0.8, 0.01, 1000);
+
+    assertEquals(DROP_HEAVY_FIELDS, monitor.evaluate(0.73, 0.01, 60000));
+  }
+}
@@ -0,0 +1,176 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LiveMetricsCounterPublisherTests {
+  private static final String ENDPOINT = "https://rt.services.visualstudio.com/QuickPulseService.svc/";
+  private static final String INSTRUMENTATION_KEY = "00000000-0000-0000-0000-000000000001";
+
+  private long nowMs;
+  private boolean subscribed;
+  private int statusCode;
+  private String redirectEndpoint;
+  private long pollingIntervalHintMs;
+  private List<URI> requestUris;
+  private List<String> requestBodies;
+
+  private LiveMetricsCounters counters;
+  private LiveMetricsCounterPublisher publisher;
+
+  @BeforeEach
+  public void setup() {
+    nowMs = 1614556800000L;
+    subscribed = false;
+    statusCode = 200;
+    redirectEndpoint = null;
+    pollingIntervalHintMs = 0;
+    requestUris = new ArrayList<>();
+    requestBodies = new ArrayList<>();
+
+    counters = new LiveMetricsCounters();
+    publisher = new LiveMetricsCounterPublisher(
+        ENDPOINT,
+        INSTRUMENTATION_KEY,
+        counters,
+        (uri, headers, body) -> {
+          requestUris.add(uri);
+          requestBodies.add(body);
+
+          return new LiveMetricsCounterPublisher.Response(
+              statusCode,
+              subscribed,
+              redirectEndpoint,
+              pollingIntervalHintMs
+          );
+        },
+        () -> nowMs
+    );
+  }
+
+  @Test
+  public void when_no_session_is_subscribed_then_service_is_pinged_every_five_seconds() {
+    for (var i = 0; i < 10; i++) {
+      tick();
+    }
+
+    assertEquals(2, requestUris.size());
+    assertEquals("/QuickPulseService.svc/ping", requestUris.get(0).getPath());
+    assertEquals("ikey=" + INSTRUMENTATION_KEY, requestUris.get(0).getQuery());
+  }
+
+  @Test
+  public void when_session_is_subscribed_then_data_points_are_posted_every_tick() {
+    subscribed = true;
+
+    tick();
+    tick();
+    tick();
+
+    assertEquals(3, requestUris.size());
+    assertEquals("/QuickPulseService.svc/post", requestUris.get(2).getPath());
+  }
+
+  @Test
+  public void when_session_ends_then_publisher_goes_back_to_pinging() {
+    subscribed = true;
+    tick();
+
+    subscribed = false;
+    tick();
+
+    assertFalse(publisher.isSubscribed());
+
+    for (var i = 0; i < 5; i++) {
+      tick();
+    }
+
+    assertEquals(3, requestUris.size());
+    assertEquals("/QuickPulseService.svc/ping", requestUris.get(2).getPath());
+  }
+
+  @Test
+  public void when_service_sends_polling_interval_hint_then_pings_follow_it() {
+    pollingIntervalHintMs = 2000;
+
+    for (var i = 0; i < 6; i++) {
+      tick();
+    }
+
+    assertEquals(3, requestUris.size());
+  }
+
+  @Test
+  public void when_service_redirects_then_next_request_goes_to_new_endpoint() {
+    redirectEndpoint = "https://westeurope.livediagnostics.monitor.azure.com/";
+    subscribed = true;
+
+    tick();
+    tick();
+
+    assertEquals("westeurope.livediagnostics.monitor.azure.com", requestUris.get(1).getHost());
+    assertEquals("/QuickPulseService.svc/post", requestUris.get(1).getPath());
+  }
+
+  @Test
+  public void when_service_returns_error_status_then_pings_back_off() {
+    statusCode = 403;
+
+    for (var i = 0; i < 60; i++) {
+      tick();
+    }
+
+    // 10s, 20s, 40s then capped at 60s
+    assertEquals(3, requestUris.size());
+    assertFalse(publisher.isSubscribed());
+  }
+
+  @Test
+  public void when_data_points_are_posted_then_rates_come_from_counters() {
+    subscribed = true;
+    tick();
+
+    counters.record(buildSampleResult(100, true));
+    counters.record(buildSampleResult(300, false));
+
+    nowMs += 1000;
+    publisher.tick();
+
+    var dataPoint = requestBodies.get(1);
+
+    assertTrue(dataPoint.contains("{\"Name\":\"\\\\ApplicationInsights\\\\Requests/Sec\",\"Value\":2.0,\"Weight\":1}"));
+    assertTrue(dataPoint.contains("{\"Name\":\"\\\\ApplicationInsights\\\\Request Duration\",\"Value\":200.0,\"Weight\":2}"));
+    assertTrue(dataPoint.contains("{\"Name\":\"\\\\ApplicationInsights\\\\Requests Failed/Sec\",\"Value\":1.0,\"Weight\":1}"));
+    assertTrue(dataPoint.contains("\"Timestamp\":\"\\/Date(" + nowMs + ")\\/\""));
+  }
+
+  @Test
+  public void when_counters_are_drained_then_they_are_reset() {
+    counters.record(buildSampleResult(100, true));
+
+    assertEquals(1, counters.drain().getRequests());
+    assertEquals(0, counters.drain().getRequests());
+  }
+
+  private void tick() {
+    nowMs += 1000;
+    publisher.tick();
+  }
+
+  private static SampleResult buildSampleResult(long elapsed, boolean success) {
+    var result = new SampleResult();
+
+    result.setStampAndTime(0, elapsed);
+    result.setSuccessful(success);
+    result.setErrorCount(success ? 0 : 1);
+
+    return result;
+  }
+}
@@ -0,0 +1,58 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RuntimeConfigWatcherTests {
+  @TempDir
+  public Path tempDir;
+
+  @Test
+  public void when_runtime_config_file_exists_at_startup_then_it_is_not_applied_until_it_changes() throws IOException {
+    var configFile = tempDir.resolve("runtime.properties");
+
+    Files.writeString(configFile, "samplersList=Stale\n");
+
+    var watcher = new RuntimeConfigWatcher(configFile);
+
+    watcher.check();
+    assertNull(watcher.poll());
+
+    Files.writeString(configFile, "samplersList=Farbot\n");
+    Files.setLastModifiedTime(configFile, FileTime.fromMillis(System.currentTimeMillis() + 60000));
+    watcher.check();
+
+    assertEquals("Farbot", watcher.poll().getProperty("samplersList"));
+  }
+
+  @Test
+  public void when_runtime_config_file_changes_then_watcher_returns_new_config_once() throws IOException {
+    var configFile = tempDir.resolve("runtime.properties");
+    var watcher = new RuntimeConfigWatcher(configFile);
+
+    watcher.check();
+    assertNull(watcher.poll());
+
+    Files.writeString(configFile, "samplersList=Farbot\n");
+    watcher.check();
+
+    assertEquals("Farbot", watcher.poll().getProperty("samplersList"));
+    assertNull(watcher.poll());
+
+    watcher.check();
+    assertNull(watcher.poll());
+
+    Files.writeString(configFile, "samplingPercentage=10\n");
+    Files.setLastModifiedTime(configFile, FileTime.fromMillis(System.currentTimeMillis() + 60000));
+    watcher.check();
+
+    assertEquals("10", watcher.poll().getProperty("samplingPercentage"));
+  }
+}
@@ -0,0 +1,35 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SampleFilterTests {
+  @Test
+  public void when_samplers_list_is_empty_then_all_samples_are_tracked() {
+    var filter = SampleFilter.of(" ", false, ";");
+
+    assertTrue(filter.shouldTrack("Farbot"));
+  }
+
+  @Test
+  public void when_samplers_list_is_set_then_only_listed_samples_are_tracked() {
+    var filter = SampleFilter.of("Malorn;Farbot", false, ";");
+
+    assertTrue(filter.shouldTrack("Farbot"));
+    assertFalse(filter.shouldTrack("Carpet Line"));
+  }
+
+  @Test
+  public void when_samplers_list_is_a_regex_then_matching_samples_are_tracked() {
+    var filter = SampleFilter.of("Farbot \\d+", true, ";");
+
+    assertTrue(filter.shouldTrack("Farbot 34"));
+    assertFalse(filter.shouldTrack("Farbot Khan"));
+  }
+
+  @Test
+  public void when_samplers_list_is_an_invalid_regex_then_exception_is_thrown() {
+    assertThrows(IllegalArgumentException.class, () -> SampleFilter.of("(Farbot", true, ";"));
+  }
+}
@@ -0,0 +1,96 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.util.Optional;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.apache.jmeter.threads.JMeterVariables;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SampleResultFieldExtractorFactoryTests {
+  private SampleResultFieldExtractorFactory factory;
+  private SampleVariablesCapture variables;
+
+  private SampleResult result;
+
+  @BeforeEach
+  public void setup() {
+    factory = new SampleResultFieldExtractorFactory();
+    variables = new SampleVariablesCapture();
+
+    result = new SampleResult();
+    result.setResponseHeaders("HTTP/1.1 200 OK\nContent-Type: application/json\nX-Cache: HIT\n");
+    result.setResponseData("{\"order\":{\"id\":\"A-1234\",\"lines\":[1,2]},\"token\":\"abc123\"}", "UTF-8");
+  }
+
+  @Test
+  public void when_compileExtractor_isCalled_with_header_spec_then_header_value_is_extracted() {
+    var extractor = factory.compileExtractor("header:x-cache", variables);
+
+    assertEquals(Optional.of("HIT"), extractor.getValueFrom(result));
+  }
+
+  @Test
+  public void when_compileExtractor_isCalled_with_regex_spec_then_first_group_is_extracted() {
+    var extractor = factory.compileExtractor("regex:\"token\":\"(\\w+)\"", variables);
+
+    assertEquals(Optional.of("abc123"), extractor.getValueFrom(result));
+  }
+
+  @Test
+  public void when_compileExtractor_isCalled_with_json_spec_then_pointer_value_is_extracted() {
+    var extractor = factory.compileExtractor("json:/order/id", variables);
+
+    assertEquals(Optional.of("A-1234"), extractor.getValueFrom(result));
+  }
+
+  @Test
+  public void when_compileExtractor_isCalled_with_json_spec_for_array_then_json_text_is_extracted() {
+    var extractor = factory.compileExtractor("json:/order/lines", variables);
+
+    assertEquals(Optional.of("[1,2]"), extractor.getValueFrom(result));
+  }
+
+  @Test
+  public void when_compileExtractor_isCalled_with_json_spec_and_body_is_not_json_then_no_value_is_extracted() {
+    result.setResponseData("<html></html>", "UTF-8");
+
+    var extractor = factory.compileExtractor("json:/order/id", variables);
+
+    assertEquals(Optional.empty(), extractor.getValueFrom(result));
+  }
+
+  @Test
+  public void when_compileExtractor_isCalled_with_variable_spec_then_captured_variable_is_extracted() {
+    var extractor = factory.compileExtractor("var:userId", variables);
+
+    var jmeterVariables = new JMeterVariables();
+    jmeterVariables.put("userId", "user-42");
+    JMeterContextService.getContext().setVariables(jmeterVariables);
+
+    variables.capture(result);
+
+    assertEquals(Optional.of("user-42"), extractor.getValueFrom(result));
+  }
+
+  @Test
+  public void when_compileExtractor_isCalled_with_unknown_type_then_exception_is_thrown() {
+    assertThrows(IllegalArgumentException.class, () -> factory.compileExtractor("xpath://id", variables));
+  }
+
+  @Test
+  public void when_getProvidedExtractor_isCalled_with_registered_name_then_provider_is_returned() {
+    var extractor = factory.getProvidedExtractor("testorderidextractor").orElseThrow();
+
+    assertEquals("TestOrderIdExtractor", extractor.getFieldName());
+    assertEquals(Optional.of("A-1234"), extractor.getValueFrom(result));
+  }
+
+  @Test
+  public void when_getProvidedExtractor_isCalled_with_unknown_name_then_empty_is_returned() {
+    assertTrue(factory.getProvidedExtractor("NotAnExtractor").isEmpty());
+  }
+}
@@ -4,6 +4,7 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.ZoneOffset;
 import java.util.Date;
+import java.util.Optional;
 import java.util.stream.Stream;
 
 import static io.github.djfdyuruiry.jmeter.azure.SampleResultField.*;
@@ -155,6 +156,59 @@ public class SampleResultToTelemetryMapperTests {
     assertEquals("GET", telemetry.getHttpMethod());
   }
 
+  @Test
+  public void when_map_called_with_http_result_and_heavy_fields_dropped_then_heavy_fields_are_not_copied() throws MalformedURLException {
+    enableAllResultFields();
+    mapper.setHeavyFieldsDropped(true);
+
+    var telemetry = mapper.map("some request name", httpResult);
+
+    assertFalse(telemetry.getProperties().containsKey("HttpRequestHeaders"));
+    assertFalse(telemetry.getProperties().containsKey("HttpCookies"));
+    assertNull(telemetry.getUrl());
+    assertEquals("GET", telemetry.getProperties().get("HttpMethod"));
+  }
+
+  @Test
+  public void when_map_called_and_heavy_fields_are_dropped_then_custom_fields_are_not_set() {
+    mapper.enableCustomField("OrderId", r -> Optional.of("A-1234"));
+    mapper.setHeavyFieldsDropped(true);
+
+    var telemetry = mapper.map("some request name", httpResult);
+
+    assertFalse(telemetry.getProperties().containsKey("OrderId"));
+  }
+
+  @Test
+  public void when_map_called_with_http_result_and_traceparent_header_sent_then_operation_is_set() {
+    httpResult.setRequestHeaders(
+        "Connection: keep-alive\ntraceparent: 00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01\n"
+    );
+
+    var telemetry = mapper.map("some request name", httpResult);
+
+    assertEquals("b7ad6b7169203331", telemetry.getId());
+    assertEquals("0af7651916cd43dd8448eb211c80319c", telemetry.getContext().getOperation().getId());
+  }
+
+  @Test
+  public void when_map_called_with_http_result_and_traceparent_header_sent_then_timing_breakdown_is_set() {
+    httpResult.setRequestHeaders("traceparent: 00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01");
+
+    var telemetry = mapper.map("some request name", httpResult);
+
+    assertEquals(10.0, telemetry.getMetrics().get("ConnectionSetupTime"));
+    assertFalse(telemetry.getMetrics().containsKey("ConnectTime"));
+    assertEquals(0.0, telemetry.getMetrics().get("ServerAndNetworkTime"));
+    assertEquals(30.0, telemetry.getMetrics().get("ResponseDownloadTime"));
+  }
+
+  @Test
+  public void when_map_called_with_http_result_and_no_traceparent_header_sent_then_timing_breakdown_is_not_set() {
+    var telemetry = mapper.map("some request name", httpResult);
+
+    assertTrue(telemetry.getMetrics().isEmpty());
+  }
 
   @Test
   public void when_map_called_with_result_and_custom_properties_added_then_properties_are_copied() {
@@ -0,0 +1,178 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.util.ArrayList;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.TelemetryConfiguration;
+
+public class TelemetryClientRegistryTests {
+  private static final String INSTRUMENTATION_KEY = UUID.randomUUID().toString();
+
+  private int clientsCreated;
+  private int quickPulseInitialisations;
+
+  private TelemetryClientRegistry registry;
+
+  @BeforeEach
+  public void setup() {
+    clientsCreated = 0;
+    quickPulseInitialisations = 0;
+
+    registry = new TelemetryClientRegistry();
+  }
+
+  @Test
+  public void when_acquire_isCalled_twice_with_same_key_then_client_is_shared() {
+    var first = acquire(INSTRUMENTATION_KEY, "");
+    var second = acquire(INSTRUMENTATION_KEY, "");
+
+    assertSame(first.getClient(), second.getClient());
+    assertEquals(1, clientsCreated);
+    assertEquals(2, second.getReferences());
+  }
+
+  @Test
+  public void when_acquire_isCalled_with_different_endpoints_then_clients_are_not_shared() {
+    var first = acquire(INSTRUMENTATION_KEY, "");
+    var second = acquire(INSTRUMENTATION_KEY, "https://westeurope-0.in.applicationinsights.azure.com/");
+
+    assertNotSame(first.getClient(), second.getClient());
+    assertEquals(2, clientsCreated);
+  }
+
+  @Test
+  public void when_acquire_isCalled_for_dry_run_then_client_is_not_shared_with_real_client() {
+    var real = acquire(INSTRUMENTATION_KEY, "");
+    var dryRun = acquire(INSTRUMENTATION_KEY, "", true);
+
+    assertNotSame(real.getClient(), dryRun.getClient());
+    assertNull(real.getDryRunChannel());
+    assertNotNull(dryRun.getDryRunChannel());
+  }
+
+  @Test
+  public void when_acquire_isCalled_for_dry_run_with_endpoint_and_no_key_then_placeholder_key_is_used() {
+    var configs = new ArrayList<TelemetryConfiguration>();
+
+    registry.acquire(
+        "",
+        "https://westeurope-0.in.applicationinsights.azure.com/",
+        true,
+        c -> {
+          configs.add(c);
+
+          return mock(TelemetryClient.class);
+        }
+    );
+
+    assertEquals("00000000-0000-0000-0000-000000000000", configs.get(0).getInstrumentationKey());
+  }
+
+  @Test
+  public void when_release_isCalled_then_only_last_release_returns_true() {
+    var first = acquire(INSTRUMENTATION_KEY, "");
+    var second = acquire(INSTRUMENTATION_KEY, "");
+
+    assertFalse(registry.release(first));
+    assertTrue(registry.release(second));
+  }
+
+  @Test
+  public void when_all_references_are_released_then_next_acquire_creates_new_client() {
+    registry.release(acquire(INSTRUMENTATION_KEY, ""));
+
+    acquire(INSTRUMENTATION_KEY, "");
+
+    assertEquals(2, clientsCreated);
+  }
+
+  @Test
+  public void when_initialiseLiveMetricsOnce_isCalled_by_each_listener_then_quick_pulse_is_initialised_once() {
+    acquire(INSTRUMENTATION_KEY, "").initialiseLiveMetricsOnce(c -> quickPulseInitialisations++);
+    acquire(INSTRUMENTATION_KEY, "").initialiseLiveMetricsOnce(c -> quickPulseInitialisations++);
+
+    assertEquals(1, quickPulseInitialisations);
+  }
+
+  @Test
+  public void when_initialiseLiveMetricsCountersOnce_isCalled_by_each_listener_then_one_publisher_is_created() {
+    var first = acquire(INSTRUMENTATION_KEY, "");
+    var second = acquire(INSTRUMENTATION_KEY, "");
+
+    first.initialiseLiveMetricsCountersOnce(this::createPublisher);
+    second.initialiseLiveMetricsCountersOnce(this::createPublisher);
+
+    registry.release(first);
+    registry.release(second);
+
+    assertEquals(1, quickPulseInitialisations);
+    assertSame(first.getLiveMetricsCounters(), second.getLiveMetricsCounters());
+  }
+
+  @Test
+  public void when_counters_listener_joins_client_fed_from_telemetry_then_client_is_not_fed_by_counters() {
+    var first = acquire(INSTRUMENTATION_KEY, "");
+    var second = acquire(INSTRUMENTATION_KEY, "");
+
+    first.initialiseLiveMetricsOnce(c -> quickPulseInitialisations++);
+    second.initialiseLiveMetricsCountersOnce(this::createPublisher);
+
+    assertEquals(1, quickPulseInitialisations);
+    assertFalse(second.isLiveMetricsFedByCounters());
+  }
+
+  @Test
+  public void when_telemetry_listener_joins_client_fed_from_counters_then_client_is_fed_by_counters() {
+    var first = acquire(INSTRUMENTATION_KEY, "");
+    var second = acquire(INSTRUMENTATION_KEY, "");
+
+    first.initialiseLiveMetricsCountersOnce(this::createPublisher);
+    second.initialiseLiveMetricsOnce(c -> quickPulseInitialisations++);
+
+    registry.release(first);
+    registry.release(second);
+
+    assertEquals(1, quickPulseInitialisations);
+    assertTrue(second.isLiveMetricsFedByCounters());
+  }
+
+  private LiveMetricsCounterPublisher createPublisher(String instrumentationKey, LiveMetricsCounters counters) {
+    quickPulseInitialisations++;
+
+    return new LiveMetricsCounterPublisher(
+        LiveMetricsCounterPublisher.DEFAULT_ENDPOINT,
+        instrumentationKey,
+        counters,
+        (uri, headers, body) -> new LiveMetricsCounterPublisher.Response(200, false, null, 0),
+        System::currentTimeMillis
+    );
+  }
+
+  private TelemetryClientRegistry.SharedTelemetryClient acquire(String instrumentationKey, String ingestionEndpoint) {
+    return acquire(instrumentationKey, ingestionEndpoint, false);
+  }
+
+  private TelemetryClientRegistry.SharedTelemetryClient acquire(
+      String instrumentationKey,
+      String ingestionEndpoint,
+      boolean dryRun
+  ) {
+    return registry.acquire(
+        instrumentationKey,
+        ingestionEndpoint,
+        dryRun,
+        c -> {
+          clientsCreated++;
+
+          return mock(TelemetryClient.class);
+        }
+    );
+  }
+}
@@ -0,0 +1,17 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.util.Optional;
+
+import org.apache.jmeter.samplers.SampleResult;
+
+/**
+ * Registered in <code>src/test/resources/META-INF/services</code> to exercise service provider discovery.
+ */
+public class TestOrderIdExtractor implements SampleResultFieldExtractor {
+  @Override
+  public Optional<Object> getValueFrom(SampleResult r) {
+    return r.getResponseDataAsString().contains("A-1234")
+        ? Optional.of("A-1234")
+        : Optional.empty();
+  }
+}
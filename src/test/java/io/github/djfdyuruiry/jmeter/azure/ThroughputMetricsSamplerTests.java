@@ -0,0 +1,101 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.jmeter.samplers.SampleResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThroughputMetricsSamplerTests {
+  private static final long TWO_SECONDS_IN_NANOS = 2_000_000_000L;
+
+  private long nowNanos;
+  private Map<String, Double> metrics;
+
+  private ThroughputMetricsSampler sampler;
+
+  @BeforeEach
+  public void setup() {
+    nowNanos = 0;
+    metrics = new HashMap<>();
+
+    sampler = new ThroughputMetricsSampler(
+        "some test",
+        () -> 25,
+        () -> nowNanos,
+        m -> metrics.put(m.getName(), m.getValue())
+    );
+  }
+
+  @Test
+  public void when_report_isCalled_then_rates_are_per_second() {
+    sampler.record(buildSampleResult(100, 0));
+    sampler.record(buildSampleResult(300, 1));
+
+    nowNanos = TWO_SECONDS_IN_NANOS;
+    sampler.report();
+
+    assertEquals(1.0, metrics.get("RequestsPerSecond"));
+    assertEquals(200.0, metrics.get("BytesPerSecond"));
+    assertEquals(0.5, metrics.get("ErrorsPerSecond"));
+  }
+
+  @Test
+  public void when_report_isCalled_then_active_threads_are_sent() {
+    nowNanos = TWO_SECONDS_IN_NANOS;
+    sampler.report();
+
+    assertEquals(25.0, metrics.get("ActiveThreads"));
+  }
+
+  @Test
+  public void when_report_isCalled_then_active_threads_are_sent_per_thread_group() {
+    var groupMetrics = new HashMap<String, Double>();
+
+    sampler = new ThroughputMetricsSampler(
+        "some test",
+        () -> 25,
+        () -> nowNanos,
+        m -> {
+          if (m.getName().equals("GroupActiveThreads")) {
+            groupMetrics.put(m.getProperties().get("ThreadGroup"), m.getValue());
+          }
+        }
+    );
+
+    sampler.recordThreadGroup("Browse", () -> 20);
+    sampler.recordThreadGroup("Checkout", () -> 5);
+    sampler.recordThreadGroup("Browse", () -> 99);
+
+    nowNanos = TWO_SECONDS_IN_NANOS;
+    sampler.report();
+
+    assertEquals(Map.of("Browse", 20.0, "Checkout", 5.0), groupMetrics);
+  }
+
+  @Test
+  public void when_report_isCalled_twice_then_counters_are_reset_between_reports() {
+    sampler.record(buildSampleResult(100, 0));
+
+    nowNanos = TWO_SECONDS_IN_NANOS;
+    sampler.report();
+
+    nowNanos += TWO_SECONDS_IN_NANOS;
+    sampler.report();
+
+    assertEquals(0.0, metrics.get("RequestsPerSecond"));
+  }
+
+  private static SampleResult buildSampleResult(long bytes, int errorCount) {
+    var result = new SampleResult();
+
+    result.setSampleCount(1);
+    result.setBytes(bytes);
+    result.setErrorCount(errorCount);
+
+    return result;
+  }
+}
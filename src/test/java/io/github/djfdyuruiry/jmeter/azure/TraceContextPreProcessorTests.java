@@ -0,0 +1,79 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import org.apache.jmeter.protocol.http.sampler.HTTPSampleResult;
+import org.apache.jmeter.protocol.http.sampler.HTTPSamplerProxy;
+import org.apache.jmeter.threads.JMeterContextService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TraceContextPreProcessorTests {
+  private HTTPSamplerProxy sampler;
+
+  private TraceContextPreProcessor preProcessor;
+
+  @BeforeEach
+  public void setup() {
+    sampler = new HTTPSamplerProxy();
+    JMeterContextService.getContext().setCurrentSampler(sampler);
+
+    preProcessor = new TraceContextPreProcessor();
+  }
+
+  @AfterEach
+  public void teardown() {
+    JMeterContextService.getContext().setCurrentSampler(null);
+  }
+
+  @Test
+  public void when_process_isCalled_then_traceparent_header_is_added() {
+    preProcessor.process();
+
+    var traceparent = sampler.getHeaderManager().getFirstHeaderNamed("traceparent");
+
+    assertNotNull(traceparent);
+    assertTrue(TraceContext.parse(traceparent.getValue()).orElseThrow().isSampled());
+  }
+
+  @Test
+  public void when_process_isCalled_and_sampled_is_false_then_sampled_flag_is_not_set() {
+    preProcessor.setSampled(false);
+
+    preProcessor.process();
+
+    var traceparent = sampler.getHeaderManager().getFirstHeaderNamed("traceparent");
+
+    assertFalse(TraceContext.parse(traceparent.getValue()).orElseThrow().isSampled());
+  }
+
+  @Test
+  public void when_process_isCalled_twice_then_previous_header_is_replaced() {
+    preProcessor.process();
+    var first = sampler.getHeaderManager().getFirstHeaderNamed("traceparent").getValue();
+
+    preProcessor.process();
+    var headerManager = sampler.getHeaderManager();
+
+    assertEquals(1, headerManager.size());
+    assertNotEquals(first, headerManager.getFirstHeaderNamed("traceparent").getValue());
+  }
+
+  @Test
+  public void when_process_isCalled_then_mapper_uses_injected_trace_and_span_ids() {
+    preProcessor.process();
+
+    var traceparent = sampler.getHeaderManager().getFirstHeaderNamed("traceparent").getValue();
+    var injected = TraceContext.parse(traceparent).orElseThrow();
+
+    // JMeter records the headers that were sent on the HTTP result
+    var result = new HTTPSampleResult();
+    result.setRequestHeaders("Connection: keep-alive\ntraceparent: " + traceparent + "\n");
+
+    var telemetry = new SampleResultToTelemetryMapper().map("some request name", result);
+
+    assertEquals(injected.getSpanId(), telemetry.getId());
+    assertEquals(injected.getTraceId(), telemetry.getContext().getOperation().getId());
+  }
+}
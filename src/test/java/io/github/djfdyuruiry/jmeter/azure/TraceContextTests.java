@@ -0,0 +1,46 @@
+package io.github.djfdyuruiry.jmeter.azure;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TraceContextTests {
+  @Test
+  public void when_generate_isCalled_then_traceparent_can_be_parsed() {
+    var traceContext = TraceContext.generate(true);
+
+    var parsed = TraceContext.parse(traceContext.toTraceparent()).orElseThrow();
+
+    assertEquals(traceContext.getTraceId(), parsed.getTraceId());
+    assertEquals(traceContext.getSpanId(), parsed.getSpanId());
+    assertTrue(parsed.isSampled());
+  }
+
+  @Test
+  public void when_generate_isCalled_then_ids_have_w3c_lengths() {
+    var traceContext = TraceContext.generate(false);
+
+    assertEquals(32, traceContext.getTraceId().length());
+    assertEquals(16, traceContext.getSpanId().length());
+    assertTrue(traceContext.toTraceparent().endsWith("-00"));
+  }
+
+  @Test
+  public void when_parse_isCalled_with_malformed_value_then_empty_is_returned() {
+    assertTrue(TraceContext.parse("00-not-a-trace").isEmpty());
+  }
+
+  @Test
+  public void when_fromRequestHeaders_isCalled_and_header_name_case_differs_then_header_is_found() {
+    var traceContext = TraceContext.fromRequestHeaders(
+        "Host: example.com\nTraceparent: 00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01\n"
+    );
+
+    assertEquals("b7ad6b7169203331", traceContext.orElseThrow().getSpanId());
+  }
+
+  @Test
+  public void when_fromRequestHeaders_isCalled_and_header_is_missing_then_empty_is_returned() {
+    assertTrue(TraceContext.fromRequestHeaders("Host: example.com\n").isEmpty());
+  }
+}